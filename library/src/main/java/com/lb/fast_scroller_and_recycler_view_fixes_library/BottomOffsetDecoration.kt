@@ -2,15 +2,21 @@ package com.lb.fast_scroller_and_recycler_view_fixes_library
 
 import android.graphics.Rect
 import android.view.View
+import androidx.recyclerview.widget.GridLayoutManager
 import androidx.recyclerview.widget.RecyclerView
 import androidx.recyclerview.widget.RecyclerView.ItemDecoration
 
 //https://androidx.de/androidx/car/widget/itemdecorators/BottomOffsetDecoration.html
-class BottomOffsetDecoration(private val mBottomOffset: Int, private val layoutManagerType: LayoutManagerType) : ItemDecoration() {
+class BottomOffsetDecoration(bottomOffset: Int, val layoutManagerType: LayoutManagerType) : ItemDecoration() {
     enum class LayoutManagerType {
         GRID_LAYOUT_MANAGER, LINEAR_LAYOUT_MANAGER
     }
 
+    /**
+     * The space after the last row. After changing it, call [RecyclerView.invalidateItemDecorations].
+     */
+    var bottomOffset: Int = bottomOffset
+
     override fun getItemOffsets(outRect: Rect, view: View, parent: RecyclerView, state: RecyclerView.State) {
         super.getItemOffsets(outRect, view, parent, state)
         when (layoutManagerType) {
@@ -20,17 +26,21 @@ class BottomOffsetDecoration(private val mBottomOffset: Int, private val layoutM
                         if (state.itemCount <= 0 || position != state.itemCount - 1)
                             0
                         else
-                            mBottomOffset
+                            bottomOffset
             }
             LayoutManagerType.GRID_LAYOUT_MANAGER -> {
                 val adapter = parent.adapter
+                val itemCount = adapter?.itemCount ?: 0
+                // Each item takes at least one span, so the last row starts at or after this
+                // boundary, and only the few items after it need to walk their row.
+                val lastRowBoundary = itemCount - (parent.layoutManager as GridLayoutManager).spanCount
                 outRect.bottom =
-                        if (adapter == null || adapter.itemCount == 0 || !GridLayoutManagerUtils.isOnLastRow(view, parent))
+                        if (itemCount == 0 || parent.getChildAdapterPosition(view) < lastRowBoundary
+                                || !GridLayoutManagerUtils.isOnLastRow(view, parent))
                             0
                         else
-                            mBottomOffset
+                            bottomOffset
             }
         }
     }
 }
-
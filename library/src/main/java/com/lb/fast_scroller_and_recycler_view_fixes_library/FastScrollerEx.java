@@ -33,18 +33,25 @@ import android.graphics.Canvas;
 import android.graphics.drawable.Drawable;
 import android.graphics.drawable.StateListDrawable;
 import android.view.MotionEvent;
+import android.view.View;
 
 import androidx.annotation.IntDef;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
 import androidx.core.view.ViewCompat;
+import androidx.lifecycle.DefaultLifecycleObserver;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleOwner;
+import androidx.recyclerview.widget.GridLayoutManager;
+import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import org.jetbrains.annotations.NotNull;
 
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
+import java.util.ArrayList;
 
 /**
  * Class responsible to animate and provide a fast scroller.
@@ -93,6 +100,83 @@ public class FastScrollerEx extends RecyclerView.ItemDecoration implements Recyc
     private static final int[] PRESSED_STATE_SET = new int[]{android.R.attr.state_pressed};
     private static final int[] EMPTY_STATE_SET = new int[]{};
 
+    /**
+     * Listener for the per-frame scroll state the scroller already computes, so other components
+     * don't need to add their own OnScrollListener and query the RecyclerView again.
+     */
+    public interface OnScrollSnapshotListener {
+        /**
+         * Called at most once per frame, when the scroll state changed since the previous call.
+         * It's called from an animation callback posted on the RecyclerView, so outside of its
+         * layout and draw passes, and views may be changed from here.
+         *
+         * @param snapshot The current state. The same instance is reused for every call, so it
+         *                 should not be kept after this method returns.
+         */
+        void onScrollSnapshot(@NonNull ScrollSnapshot snapshot);
+    }
+
+    /**
+     * The vertical scroll state of the RecyclerView, as seen by the scroller.
+     */
+    public static final class ScrollSnapshot {
+        int mOffset;
+        int mRange;
+        float mThumbFraction;
+        int mFirstVisiblePosition = RecyclerView.NO_POSITION;
+        int mLastVisiblePosition = RecyclerView.NO_POSITION;
+        boolean mDragging;
+
+        ScrollSnapshot() {
+        }
+
+        /**
+         * @return the vertical scroll offset, as in {@link RecyclerView#computeVerticalScrollOffset()},
+         * or as computed from the {@link ItemHeightCache} if one is used.
+         */
+        public int getOffset() {
+            return mOffset;
+        }
+
+        /**
+         * @return the vertical scroll range, as in {@link RecyclerView#computeVerticalScrollRange()},
+         * or as computed from the {@link ItemHeightCache} if one is used.
+         */
+        public int getRange() {
+            return mRange;
+        }
+
+        /**
+         * @return how far the list is scrolled, from 0 (start) to 1 (end).
+         */
+        public float getThumbFraction() {
+            return mThumbFraction;
+        }
+
+        /**
+         * @return the first visible adapter position, or {@link RecyclerView#NO_POSITION} if
+         * unknown (e.g. when not using a LinearLayoutManager).
+         */
+        public int getFirstVisiblePosition() {
+            return mFirstVisiblePosition;
+        }
+
+        /**
+         * @return the last visible adapter position, or {@link RecyclerView#NO_POSITION} if
+         * unknown (e.g. when not using a LinearLayoutManager).
+         */
+        public int getLastVisiblePosition() {
+            return mLastVisiblePosition;
+        }
+
+        /**
+         * @return whether the user is dragging the thumb.
+         */
+        public boolean isDragging() {
+            return mDragging;
+        }
+    }
+
     private final int mScrollbarMinimumRange;
     private final int mMargin;
 
@@ -145,6 +229,33 @@ public class FastScrollerEx extends RecyclerView.ItemDecoration implements Recyc
      */
     private boolean mNeedVerticalScrollbar = false;
     private boolean mNeedHorizontalScrollbar = false;
+    /**
+     * Whether touching the vertical track outside of the thumb jumps there.
+     */
+    private boolean mTrackTapJumpEnabled = false;
+    /**
+     * The current scroll state, kept up to date even when there are no listeners, except for the
+     * visible positions (see {@link #mVisiblePositionsStale}).
+     */
+    private final ScrollSnapshot mScrollSnapshot = new ScrollSnapshot();
+    private final ArrayList<OnScrollSnapshotListener> mScrollSnapshotListeners = new ArrayList<>();
+    /**
+     * Whether the scroll state changed since {@link #mScrollSnapshot} was last published.
+     */
+    private boolean mScrollSnapshotDirty = false;
+    /**
+     * Whether the visible positions of {@link #mScrollSnapshot} may be outdated. They're only
+     * kept up to date while there are listeners, and computed on demand otherwise.
+     */
+    private boolean mVisiblePositionsStale = true;
+    /**
+     * Whether {@link #mDispatchScrollSnapshotRunnable} is posted.
+     */
+    private boolean mScrollSnapshotDispatchScheduled = false;
+    private final Runnable mDispatchScrollSnapshotRunnable = () -> {
+        mScrollSnapshotDispatchScheduled = false;
+        dispatchScrollSnapshot();
+    };
     @State
     private int state = STATE_HIDDEN;
     @DragState
@@ -158,12 +269,71 @@ public class FastScrollerEx extends RecyclerView.ItemDecoration implements Recyc
     @AnimationState
     int mAnimationState = ANIMATION_STATE_OUT;
     private final Runnable mHideRunnable = () -> hide(HIDE_DURATION_MS);
-    private final RecyclerView.OnScrollListener
-            mOnScrollListener = new RecyclerView.OnScrollListener() {
+    private final RecyclerView.OnScrollListener mOnScrollListener = new ScrollListener();
+    /**
+     * RecyclerViews that scroll together with the main one (e.g. frozen columns of a table). The
+     * scroller is drawn only on the main RecyclerView, and its geometry is taken from it.
+     */
+    private final ArrayList<RecyclerView> mLinkedRecyclerViews = new ArrayList<>();
+    /**
+     * Whether a scroll is being mirrored to the other RecyclerViews, so that the scrolls it causes
+     * aren't mirrored back.
+     */
+    @SuppressWarnings("WeakerAccess") /* synthetic access */
+    boolean mSyncingScroll = false;
+    private final RecyclerView.OnScrollListener mLinkedOnScrollListener =
+            new LinkedScrollListener();
+    private final RecyclerView.AdapterDataObserver mAdapterDataObserver =
+            new AdapterChangeObserver();
+    /**
+     * Adapter currently observed by {@link #mAdapterDataObserver}, to follow adapter swaps.
+     */
+    private RecyclerView.Adapter<?> mObservedAdapter;
+    /**
+     * Whether the adapter changed since the last draw. Changes are coalesced and handled once,
+     * in the next {@link #onDrawOver}, right after the layout that applied them.
+     */
+    private boolean mAdapterChangePending = false;
+    /**
+     * Fraction given to {@link #scrollToFraction} before the RecyclerView was laid out, to jump to
+     * in the next {@link #onDrawOver}, or -1 if none.
+     */
+    private float mPendingScrollFraction = -1f;
+    /**
+     * Space at the end of the list, kept out of the vertical track (e.g. for a FAB).
+     */
+    private int mEndInset = 0;
+    /**
+     * Decoration that adds {@link #mEndInset} after the last row, if requested.
+     */
+    @Nullable
+    private BottomOffsetDecoration mEndInsetDecoration;
+    /**
+     * Measured item heights, used instead of the estimates of the layout manager, if set.
+     */
+    @Nullable
+    private ItemHeightCache mItemHeightCache;
+    /**
+     * Grows the item height cache for a new adapter. Posted rather than run from
+     * {@link #updateObservedAdapter()}, which runs in the draw pass, as growing is O(n) and maps
+     * the file again.
+     */
+    private final Runnable mEnsureItemHeightCapacityRunnable = () -> {
+        if (mItemHeightCache != null && mObservedAdapter != null) {
+            mItemHeightCache.ensureCapacity(mObservedAdapter.getItemCount());
+            // So that items beyond the previous capacity get stored
+            onAdapterDataChanged();
+        }
+    };
+    /**
+     * Lifecycle the scroller was bound to by {@link #bindToLifecycle}, if any.
+     */
+    @Nullable
+    private Lifecycle mLifecycle;
+    private final DefaultLifecycleObserver mLifecycleObserver = new DefaultLifecycleObserver() {
         @Override
-        public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
-            updateScrollPosition(recyclerView.computeHorizontalScrollOffset(),
-                    recyclerView.computeVerticalScrollOffset());
+        public void onDestroy(@NonNull LifecycleOwner owner) {
+            tearDown();
         }
     };
 
@@ -194,12 +364,23 @@ public class FastScrollerEx extends RecyclerView.ItemDecoration implements Recyc
         attachToRecyclerView(recyclerView);
     }
 
-    private void attachToRecyclerView(@Nullable RecyclerView recyclerView) {
+    /**
+     * Attaches the scroller to the given RecyclerView, detaching it from the previous one if
+     * needed.
+     *
+     * @param recyclerView The RecyclerView to attach to, or null to just detach (which also
+     *                     unbinds it from its lifecycle, if any).
+     */
+    public void attachToRecyclerView(@Nullable RecyclerView recyclerView) {
+        if (recyclerView == null) {
+            unbindFromLifecycle();
+        }
         if (this.recyclerView == recyclerView) {
             return; // nothing to do
         }
         if (this.recyclerView != null) {
             destroyCallbacks();
+            resetState();
         }
         this.recyclerView = recyclerView;
         if (this.recyclerView != null) {
@@ -207,25 +388,240 @@ public class FastScrollerEx extends RecyclerView.ItemDecoration implements Recyc
         }
     }
 
+    /**
+     * Removes the scroller from its RecyclerView, cancels its pending callbacks and animations,
+     * and drops its reference to the RecyclerView. It can be attached again later.
+     */
+    public void detachFromRecyclerView() {
+        attachToRecyclerView(null);
+    }
+
+    /**
+     * Detaches the scroller automatically when the given owner is destroyed, also dropping its
+     * scroll snapshot listeners and item height cache. For fragments, pass the view lifecycle
+     * owner, as the RecyclerView belongs to the view.
+     */
+    public void bindToLifecycle(@NonNull LifecycleOwner lifecycleOwner) {
+        unbindFromLifecycle();
+        Lifecycle lifecycle = lifecycleOwner.getLifecycle();
+        if (lifecycle.getCurrentState() == Lifecycle.State.DESTROYED) {
+            tearDown();
+            return;
+        }
+        mLifecycle = lifecycle;
+        lifecycle.addObserver(mLifecycleObserver);
+    }
+
+    /**
+     * Releases everything that may refer to the screen, for when its lifecycle is destroyed.
+     */
+    @SuppressWarnings("WeakerAccess") /* synthetic access */
+    void tearDown() {
+        detachFromRecyclerView();
+        mScrollSnapshotListeners.clear();
+        mItemHeightCache = null;
+    }
+
+    private void unbindFromLifecycle() {
+        if (mLifecycle != null) {
+            mLifecycle.removeObserver(mLifecycleObserver);
+            mLifecycle = null;
+        }
+    }
+
+    /**
+     * Brings the scroller back to its initial hidden state, without touching the RecyclerView.
+     */
+    private void resetState() {
+        // Cancel is ignored by AnimatorListener, so the state is set here instead
+        mShowHideAnimator.cancel();
+        mAnimationState = ANIMATION_STATE_OUT;
+        mVerticalThumbDrawable.setState(EMPTY_STATE_SET);
+        mVerticalThumbDrawable.setAlpha(SCROLLBAR_FULL_OPAQUE);
+        mVerticalTrackDrawable.setAlpha(SCROLLBAR_FULL_OPAQUE);
+        state = STATE_HIDDEN;
+        dragState = DRAG_NONE;
+        mVerticalDragY = 0;
+        mHorizontalDragX = 0;
+        recyclerViewWidth = 0;
+        recyclerViewHeight = 0;
+        mAdapterChangePending = false;
+        mPendingScrollFraction = -1f;
+    }
+
     private void setupCallbacks() {
+        if (mEndInsetDecoration != null) {
+            recyclerView.addItemDecoration(mEndInsetDecoration);
+        }
         recyclerView.addItemDecoration(this);
         recyclerView.addOnItemTouchListener(this);
         recyclerView.addOnScrollListener(mOnScrollListener);
+        updateObservedAdapter();
+        scheduleScrollSnapshotDispatch();
     }
 
     private void destroyCallbacks() {
+        if (mEndInsetDecoration != null) {
+            recyclerView.removeItemDecoration(mEndInsetDecoration);
+        }
         recyclerView.removeItemDecoration(this);
         recyclerView.removeOnItemTouchListener(this);
         recyclerView.removeOnScrollListener(mOnScrollListener);
+        if (mObservedAdapter != null) {
+            mObservedAdapter.unregisterAdapterDataObserver(mAdapterDataObserver);
+            mObservedAdapter = null;
+        }
+        for (int i = 0, size = mLinkedRecyclerViews.size(); i < size; ++i) {
+            mLinkedRecyclerViews.get(i).removeOnScrollListener(mLinkedOnScrollListener);
+        }
+        mLinkedRecyclerViews.clear();
+        recyclerView.removeCallbacks(mDispatchScrollSnapshotRunnable);
+        mScrollSnapshotDispatchScheduled = false;
+        recyclerView.removeCallbacks(mEnsureItemHeightCapacityRunnable);
         cancelHide();
     }
 
+    /**
+     * Links another RecyclerView to this scroller, so that both scroll together: scrolling either
+     * of them, or dragging the scroller, puts all linked ones at the same position. Meant for
+     * RecyclerViews that show the same rows, such as the frozen column of a table.
+     * <p>
+     * The scroller itself stays on the RecyclerView it's attached to. The linked RecyclerViews are
+     * held strongly until they're removed or the scroller is detached, so one that goes away
+     * before the scroller (e.g. in another fragment) should be removed.
+     */
+    public void addLinkedRecyclerView(@NonNull RecyclerView linkedRecyclerView) {
+        if (linkedRecyclerView == recyclerView || mLinkedRecyclerViews.contains(linkedRecyclerView)) {
+            return;
+        }
+        mLinkedRecyclerViews.add(linkedRecyclerView);
+        linkedRecyclerView.addOnScrollListener(mLinkedOnScrollListener);
+        if (recyclerView != null) {
+            syncLinkedScroll(recyclerView, 0);
+        }
+    }
+
+    /**
+     * Unlinks a RecyclerView added by {@link #addLinkedRecyclerView(RecyclerView)}, so that it
+     * scrolls on its own again and isn't referenced by the scroller anymore. Does nothing if it
+     * isn't linked.
+     */
+    public void removeLinkedRecyclerView(@NonNull RecyclerView linkedRecyclerView) {
+        if (mLinkedRecyclerViews.remove(linkedRecyclerView)) {
+            linkedRecyclerView.removeOnScrollListener(mLinkedOnScrollListener);
+        }
+    }
+
+    /**
+     * Aligns all the other RecyclerViews to the given one, in the same frame. They're aligned to its
+     * absolute position rather than scrolled by the same delta, which drifts (a RecyclerView may
+     * scroll less than requested, e.g. at an edge, or with rows of other heights).
+     *
+     * @param dy The scroll of the source, used only for layout managers that aren't
+     *           {@link LinearLayoutManager}s.
+     */
+    @SuppressWarnings("WeakerAccess") /* synthetic access */
+    void syncLinkedScroll(@NonNull RecyclerView source, int dy) {
+        if (recyclerView == null) {
+            return;
+        }
+        mSyncingScroll = true;
+        try {
+            if (source != recyclerView) {
+                alignLinkedRecyclerView(source, recyclerView, dy);
+            }
+            for (int i = 0, size = mLinkedRecyclerViews.size(); i < size; ++i) {
+                RecyclerView linkedRecyclerView = mLinkedRecyclerViews.get(i);
+                if (linkedRecyclerView != source) {
+                    alignLinkedRecyclerView(source, linkedRecyclerView, dy);
+                }
+            }
+        } finally {
+            mSyncingScroll = false;
+        }
+    }
+
+    /**
+     * Puts the first visible item of the source at the same position, with the same top, in the
+     * target: by a scroll if the target has it laid out, or by a jump otherwise.
+     */
+    private void alignLinkedRecyclerView(@NonNull RecyclerView source, @NonNull RecyclerView target,
+                                         int dy) {
+        RecyclerView.LayoutManager sourceLayoutManager = source.getLayoutManager();
+        RecyclerView.LayoutManager targetLayoutManager = target.getLayoutManager();
+        if (source.isLayoutRequested()) {
+            // Its laid out views are outdated (e.g. a pending jump, which is applied to all)
+            return;
+        }
+        if (!(sourceLayoutManager instanceof LinearLayoutManager)
+                || !(targetLayoutManager instanceof LinearLayoutManager)) {
+            if (dy != 0) {
+                target.scrollBy(0, dy);
+            }
+            return;
+        }
+        int position = ((LinearLayoutManager) sourceLayoutManager).findFirstVisibleItemPosition();
+        View sourceView = position == RecyclerView.NO_POSITION
+                ? null : sourceLayoutManager.findViewByPosition(position);
+        if (sourceView == null) {
+            return;
+        }
+        int top = sourceLayoutManager.getDecoratedTop(sourceView) - source.getPaddingTop();
+        View targetView = targetLayoutManager.findViewByPosition(position);
+        if (targetView != null && !target.isLayoutRequested()) {
+            int diff = targetLayoutManager.getDecoratedTop(targetView) - target.getPaddingTop() - top;
+            if (diff != 0) {
+                target.scrollBy(0, diff);
+            }
+        } else {
+            ((LinearLayoutManager) targetLayoutManager).scrollToPositionWithOffset(position, top);
+        }
+    }
+
+    /**
+     * Moves {@link #mAdapterDataObserver} to the current adapter of the RecyclerView, if it was
+     * replaced.
+     */
+    private void updateObservedAdapter() {
+        RecyclerView.Adapter<?> adapter = recyclerView.getAdapter();
+        if (adapter == mObservedAdapter) {
+            return;
+        }
+        if (mObservedAdapter != null) {
+            mObservedAdapter.unregisterAdapterDataObserver(mAdapterDataObserver);
+        }
+        mObservedAdapter = adapter;
+        if (adapter != null) {
+            adapter.registerAdapterDataObserver(mAdapterDataObserver);
+            if (mItemHeightCache != null) {
+                ViewCompat.postOnAnimation(recyclerView, mEnsureItemHeightCapacityRunnable);
+            }
+        }
+        mAdapterChangePending = true;
+    }
+
+    @SuppressWarnings("WeakerAccess") /* synthetic access */
+    void onAdapterDataChanged() {
+        if (mAdapterChangePending) {
+            return;
+        }
+        mAdapterChangePending = true;
+        requestRedraw();
+    }
+
     @SuppressWarnings("WeakerAccess") /* synthetic access */
     void requestRedraw() {
-        recyclerView.invalidate();
+        if (recyclerView != null) {
+            recyclerView.invalidate();
+        }
     }
 
     private void setState(@State int state) {
+        if ((state == STATE_DRAGGING) != (this.state == STATE_DRAGGING)) {
+            mScrollSnapshot.mDragging = state == STATE_DRAGGING;
+            mScrollSnapshotDirty = true;
+            scheduleScrollSnapshotDispatch();
+        }
         if (state == STATE_DRAGGING && this.state != STATE_DRAGGING) {
             mVerticalThumbDrawable.setState(PRESSED_STATE_SET);
             cancelHide();
@@ -254,6 +650,146 @@ public class FastScrollerEx extends RecyclerView.ItemDecoration implements Recyc
         return state == STATE_DRAGGING;
     }
 
+    /**
+     * Adds a listener that gets the scroll state once per frame in which it changed. Must be
+     * called on the main thread.
+     */
+    public void addOnScrollSnapshotListener(@NonNull OnScrollSnapshotListener listener) {
+        if (!mScrollSnapshotListeners.contains(listener)) {
+            mScrollSnapshotListeners.add(listener);
+            mScrollSnapshotDirty = true;
+            scheduleScrollSnapshotDispatch();
+        }
+    }
+
+    public void removeOnScrollSnapshotListener(@NonNull OnScrollSnapshotListener listener) {
+        mScrollSnapshotListeners.remove(listener);
+    }
+
+    /**
+     * @return the current scroll state. The instance is reused, so it should not be kept.
+     */
+    @NonNull
+    public ScrollSnapshot getScrollSnapshot() {
+        updateVisiblePositions();
+        return mScrollSnapshot;
+    }
+
+    /**
+     * Sets the trailing space of the list (e.g. to keep the last items above a FAB), for both the
+     * list and the scroller: the vertical track ends above it (and above the bottom padding, if
+     * padding is considered), and, if a layout manager type is given, a
+     * {@link BottomOffsetDecoration} adds the same space after the last row.
+     *
+     * @param endInset          The trailing space, in pixels.
+     * @param layoutManagerType The type of the layout manager, for the decoration, or null to only
+     *                          keep the track out of the space (e.g. when it's added in another
+     *                          way).
+     */
+    public void setEndInset(int endInset,
+                            @Nullable BottomOffsetDecoration.LayoutManagerType layoutManagerType) {
+        mEndInset = Math.max(0, endInset);
+        if (mEndInsetDecoration != null
+                && (layoutManagerType == null
+                || mEndInsetDecoration.getLayoutManagerType() != layoutManagerType)) {
+            if (recyclerView != null) {
+                recyclerView.removeItemDecoration(mEndInsetDecoration);
+            }
+            mEndInsetDecoration = null;
+        }
+        if (layoutManagerType != null) {
+            if (mEndInsetDecoration == null) {
+                mEndInsetDecoration = new BottomOffsetDecoration(mEndInset, layoutManagerType);
+                if (recyclerView != null) {
+                    // Before the scroller, which should be drawn over everything
+                    recyclerView.removeItemDecoration(this);
+                    recyclerView.addItemDecoration(mEndInsetDecoration);
+                    recyclerView.addItemDecoration(this);
+                }
+            } else {
+                mEndInsetDecoration.setBottomOffset(mEndInset);
+                if (recyclerView != null) {
+                    recyclerView.invalidateItemDecorations();
+                }
+            }
+        }
+        mAdapterChangePending = true;
+        requestRedraw();
+    }
+
+    public int getEndInset() {
+        return mEndInset;
+    }
+
+    /**
+     * Sets a cache of measured item heights, so that the thumb size and position are exact for
+     * the items that were ever measured (even in previous runs), instead of being estimated from
+     * the items that are currently laid out. Visible items are measured and stored as they're
+     * drawn.
+     * <p>
+     * Only used with a vertical, non-reversed LinearLayoutManager (not a GridLayoutManager).
+     * With stable ids, a stored height that was measured for another item is replaced as soon as
+     * its position is laid out again (see {@link ItemHeightCache#put}). Granular adapter
+     * changes are forwarded to the cache, but after notifyDataSetChanged() with other content, a
+     * cache of another content version should be set. The scroller doesn't close the cache.
+     */
+    public void setItemHeightCache(@Nullable ItemHeightCache itemHeightCache) {
+        mItemHeightCache = itemHeightCache;
+        RecyclerView.Adapter<?> adapter = recyclerView == null ? null : recyclerView.getAdapter();
+        if (itemHeightCache != null && adapter != null) {
+            itemHeightCache.ensureCapacity(adapter.getItemCount());
+        }
+        mAdapterChangePending = true;
+        requestRedraw();
+    }
+
+    @Nullable
+    public ItemHeightCache getItemHeightCache() {
+        return mItemHeightCache;
+    }
+
+    public boolean isTrackTapJumpEnabled() {
+        return mTrackTapJumpEnabled;
+    }
+
+    /**
+     * Sets whether touching the vertical track outside of the thumb should jump to the matching
+     * position (and continue as a drag from there), instead of being passed to the RecyclerView.
+     */
+    public void setTrackTapJumpEnabled(boolean trackTapJumpEnabled) {
+        mTrackTapJumpEnabled = trackTapJumpEnabled;
+    }
+
+    /**
+     * Scrolls the RecyclerView to the given fraction of its vertical scroll range, using a single
+     * layout pass instead of scrolling (or smooth-scrolling) through all items in between.
+     * <p>
+     * May be called before the RecyclerView is laid out (e.g. right after setting its adapter),
+     * in which case the jump is applied once it's laid out, in its first draw. Does nothing if
+     * the scroller isn't attached.
+     *
+     * @param fraction 0 for the start of the list, 1 for its end.
+     */
+    public void scrollToFraction(float fraction) {
+        if (recyclerView == null) {
+            return;
+        }
+        fraction = Math.max(0f, Math.min(1f, fraction));
+        if (!ViewCompat.isLaidOut(recyclerView) || recyclerView.isLayoutRequested()) {
+            // The scroll range isn't known yet, so it will be computed after the pending layout
+            mPendingScrollFraction = fraction;
+            requestRedraw();
+            return;
+        }
+        mPendingScrollFraction = -1f;
+        int scrollRange = computeVerticalScrollRange();
+        int totalPossibleOffset = scrollRange - getVerticalVisibleLength(recyclerView.getHeight());
+        if (totalPossibleOffset <= 0) {
+            return;
+        }
+        verticalJumpTo((int) (fraction * totalPossibleOffset), scrollRange);
+    }
+
     @VisibleForTesting
     boolean isVisible() {
         return state == STATE_VISIBLE;
@@ -292,16 +828,24 @@ public class FastScrollerEx extends RecyclerView.ItemDecoration implements Recyc
     }
 
     private void cancelHide() {
-        recyclerView.removeCallbacks(mHideRunnable);
+        if (recyclerView != null) {
+            recyclerView.removeCallbacks(mHideRunnable);
+        }
     }
 
     private void resetHideDelay(int delay) {
         cancelHide();
-        recyclerView.postDelayed(mHideRunnable, delay);
+        if (recyclerView != null) {
+            recyclerView.postDelayed(mHideRunnable, delay);
+        }
     }
 
     @Override
     public void onDrawOver(@NotNull Canvas canvas, @NotNull RecyclerView parent, @NotNull RecyclerView.State state) {
+        if (mPendingScrollFraction >= 0f) {
+            // Laid out by now. The jump requests the next layout, so it's shown in the next frame.
+            scrollToFraction(mPendingScrollFraction);
+        }
         if (recyclerViewWidth != recyclerView.getWidth()
                 || recyclerViewHeight != recyclerView.getHeight()) {
             recyclerViewWidth = recyclerView.getWidth();
@@ -314,6 +858,17 @@ public class FastScrollerEx extends RecyclerView.ItemDecoration implements Recyc
             return;
         }
 
+        updateObservedAdapter();
+        recordItemHeights();
+        if (mAdapterChangePending) {
+            mAdapterChangePending = false;
+            // Only the geometry is refreshed: data changes alone shouldn't reveal the scroller.
+            if (!updateScrollGeometry(recyclerView.computeHorizontalScrollOffset(),
+                    computeVerticalScrollOffset()) && state != STATE_HIDDEN) {
+                setState(STATE_HIDDEN);
+            }
+        }
+
         if (mAnimationState != ANIMATION_STATE_OUT) {
             if (mNeedVerticalScrollbar) {
                 drawVerticalScrollbar(canvas);
@@ -324,6 +879,88 @@ public class FastScrollerEx extends RecyclerView.ItemDecoration implements Recyc
         }
     }
 
+    /**
+     * Updates {@link #mScrollSnapshot} with the given vertical offset and range, and schedules
+     * publishing it if anything changed.
+     */
+    private void updateScrollSnapshot(int offsetY, int verticalContentLength) {
+        final ScrollSnapshot snapshot = mScrollSnapshot;
+        int totalPossibleOffset = verticalContentLength - getVerticalVisibleLength(recyclerViewHeight);
+        float thumbFraction = totalPossibleOffset <= 0 ? 0f
+                : Math.max(0f, Math.min(1f, offsetY / (float) totalPossibleOffset));
+        int previousFirstVisiblePosition = snapshot.mFirstVisiblePosition;
+        int previousLastVisiblePosition = snapshot.mLastVisiblePosition;
+        // Finding the visible positions walks the children, so without listeners it's left to
+        // getScrollSnapshot()
+        mVisiblePositionsStale = true;
+        if (!mScrollSnapshotListeners.isEmpty()) {
+            updateVisiblePositions();
+        }
+        if (snapshot.mOffset == offsetY && snapshot.mRange == verticalContentLength
+                && snapshot.mThumbFraction == thumbFraction
+                && snapshot.mFirstVisiblePosition == previousFirstVisiblePosition
+                && snapshot.mLastVisiblePosition == previousLastVisiblePosition) {
+            return;
+        }
+        snapshot.mOffset = offsetY;
+        snapshot.mRange = verticalContentLength;
+        snapshot.mThumbFraction = thumbFraction;
+        mScrollSnapshotDirty = true;
+        scheduleScrollSnapshotDispatch();
+    }
+
+    /**
+     * Computes the visible positions of {@link #mScrollSnapshot}, if they may have changed since
+     * they were last computed.
+     */
+    private void updateVisiblePositions() {
+        if (!mVisiblePositionsStale || recyclerView == null) {
+            return;
+        }
+        mVisiblePositionsStale = false;
+        final ScrollSnapshot snapshot = mScrollSnapshot;
+        RecyclerView.LayoutManager layoutManager = recyclerView.getLayoutManager();
+        if (layoutManager instanceof LinearLayoutManager) {
+            LinearLayoutManager linearLayoutManager = (LinearLayoutManager) layoutManager;
+            snapshot.mFirstVisiblePosition = linearLayoutManager.findFirstVisibleItemPosition();
+            snapshot.mLastVisiblePosition = linearLayoutManager.findLastVisibleItemPosition();
+        } else {
+            snapshot.mFirstVisiblePosition = RecyclerView.NO_POSITION;
+            snapshot.mLastVisiblePosition = RecyclerView.NO_POSITION;
+        }
+    }
+
+    /**
+     * Posts publishing the scroll state to the next frame, so that many changes in a frame are
+     * published once, and never from within a layout or draw pass.
+     */
+    private void scheduleScrollSnapshotDispatch() {
+        if (!mScrollSnapshotDirty || mScrollSnapshotDispatchScheduled
+                || mScrollSnapshotListeners.isEmpty() || recyclerView == null) {
+            return;
+        }
+        mScrollSnapshotDispatchScheduled = true;
+        ViewCompat.postOnAnimation(recyclerView, mDispatchScrollSnapshotRunnable);
+    }
+
+    /**
+     * Publishes the scroll state to the listeners, if it changed since it was last published.
+     */
+    @SuppressWarnings("WeakerAccess") /* synthetic access */
+    void dispatchScrollSnapshot() {
+        if (!mScrollSnapshotDirty || mScrollSnapshotListeners.isEmpty()) {
+            return;
+        }
+        mScrollSnapshotDirty = false;
+        // In case they were left stale while there were no listeners
+        updateVisiblePositions();
+        final ScrollSnapshot snapshot = mScrollSnapshot;
+        // Backwards, so listeners may remove themselves
+        for (int i = mScrollSnapshotListeners.size() - 1; i >= 0; --i) {
+            mScrollSnapshotListeners.get(i).onScrollSnapshot(snapshot);
+        }
+    }
+
     private void drawVerticalScrollbar(Canvas canvas) {
         int viewWidth = recyclerViewWidth;
 
@@ -333,8 +970,7 @@ public class FastScrollerEx extends RecyclerView.ItemDecoration implements Recyc
         int top = mVerticalThumbCenterY - mVerticalThumbHeight / 2;
         mVerticalThumbDrawable.setBounds(0, 0, mVerticalThumbWidth, mVerticalThumbHeight);
         int trackTop = 0;
-        int trackBottom = recyclerViewHeight;
-        if (mConsiderPadding) trackBottom -= recyclerView.getPaddingBottom();
+        int trackBottom = getVerticalTrackLength(recyclerViewHeight);
         mVerticalTrackDrawable
                 .setBounds(0, trackTop, mVerticalTrackWidth, trackBottom);
 
@@ -378,10 +1014,30 @@ public class FastScrollerEx extends RecyclerView.ItemDecoration implements Recyc
      * @param offsetY The new scroll Y offset.
      */
     private void updateScrollPosition(int offsetX, int offsetY) {
-        int verticalContentLength = recyclerView.computeVerticalScrollRange();
-        int verticalVisibleLength = recyclerViewHeight;
-        // This is important, because the thumb is drawn inside the vertical visible length!
-        if (mConsiderPadding) verticalVisibleLength -= recyclerView.getPaddingBottom();
+        if (!updateScrollGeometry(offsetX, offsetY)) {
+            if (state != STATE_HIDDEN) {
+                setState(STATE_HIDDEN);
+            }
+            return;
+        }
+
+        if (state == STATE_HIDDEN || state == STATE_VISIBLE) {
+            setState(STATE_VISIBLE);
+        }
+    }
+
+    /**
+     * Recomputes the thumbs sizes and positions, without changing the visibility state.
+     *
+     * @return whether any of the scrollbars is needed.
+     */
+    private boolean updateScrollGeometry(int offsetX, int offsetY) {
+        int verticalContentLength = computeVerticalScrollRange();
+        updateScrollSnapshot(offsetY, verticalContentLength);
+        int verticalVisibleLength = getVerticalVisibleLength(recyclerViewHeight);
+        // This is important, because the thumb is drawn inside the track, which also excludes
+        // the end inset!
+        int verticalTrackLength = getVerticalTrackLength(recyclerViewHeight);
         mNeedVerticalScrollbar = verticalContentLength - verticalVisibleLength > 0
                 && recyclerViewHeight >= mScrollbarMinimumRange;
 
@@ -391,24 +1047,21 @@ public class FastScrollerEx extends RecyclerView.ItemDecoration implements Recyc
                 && recyclerViewWidth >= mScrollbarMinimumRange;
 
         if (!mNeedVerticalScrollbar && !mNeedHorizontalScrollbar) {
-            if (state != STATE_HIDDEN) {
-                setState(STATE_HIDDEN);
-            }
-            return;
+            return false;
         }
 
         if (mNeedVerticalScrollbar) {
-            final int baseMinVerticalThumbHeight = Math.min(verticalVisibleLength,
-                    (verticalVisibleLength * verticalVisibleLength) / verticalContentLength);
+            final int baseMinVerticalThumbHeight = Math.min(verticalTrackLength,
+                    (verticalTrackLength * verticalVisibleLength) / verticalContentLength);
             if (minThumbSize <= 0) {
                 //original logic
                 float middleScreenPos = offsetY + verticalVisibleLength / 2.0f;
                 mVerticalThumbCenterY =
-                        (int) ((verticalVisibleLength * middleScreenPos) / verticalContentLength);
+                        (int) ((verticalTrackLength * middleScreenPos) / verticalContentLength);
                 mVerticalThumbHeight = baseMinVerticalThumbHeight;
             } else {
                 mVerticalThumbCenterY =
-                        (int) ((verticalVisibleLength - mVerticalThumbHeight) / ((float) verticalContentLength - verticalVisibleLength) * offsetY + mVerticalThumbHeight / 2.0);
+                        (int) ((verticalTrackLength - mVerticalThumbHeight) / ((float) verticalContentLength - verticalVisibleLength) * offsetY + mVerticalThumbHeight / 2.0);
                 mVerticalThumbHeight = Math.max(minThumbSize, baseMinVerticalThumbHeight);
             }
         }
@@ -426,10 +1079,7 @@ public class FastScrollerEx extends RecyclerView.ItemDecoration implements Recyc
                 mHorizontalThumbWidth = Math.max(minThumbSize, baseMinHorizontalThumbWidth);
             }
         }
-
-        if (state == STATE_HIDDEN || state == STATE_VISIBLE) {
-            setState(STATE_VISIBLE);
-        }
+        return true;
     }
 
     @Override
@@ -439,12 +1089,17 @@ public class FastScrollerEx extends RecyclerView.ItemDecoration implements Recyc
         if (state == STATE_VISIBLE) {
             boolean insideVerticalThumb = isPointInsideVerticalThumb(ev.getX(), ev.getY());
             boolean insideHorizontalThumb = isPointInsideHorizontalThumb(ev.getX(), ev.getY());
+            boolean insideVerticalTrack = !insideVerticalThumb && !insideHorizontalThumb
+                    && mTrackTapJumpEnabled && isPointInsideVerticalTrack(ev.getX(), ev.getY());
             if (ev.getAction() == MotionEvent.ACTION_DOWN
-                    && (insideVerticalThumb || insideHorizontalThumb)) {
+                    && (insideVerticalThumb || insideHorizontalThumb || insideVerticalTrack)) {
                 if (insideHorizontalThumb) {
                     dragState = DRAG_X;
                     mHorizontalDragX = (int) ev.getX();
-                } else {//if (insideVerticalThumb) {
+                } else {//if (insideVerticalThumb || insideVerticalTrack) {
+                    if (insideVerticalTrack) {
+                        verticalTrackJumpTo(ev.getY());
+                    }
                     dragState = DRAG_Y;
                     mVerticalDragY = (int) ev.getY();
                 }
@@ -467,11 +1122,16 @@ public class FastScrollerEx extends RecyclerView.ItemDecoration implements Recyc
         if (me.getAction() == MotionEvent.ACTION_DOWN) {
             boolean insideVerticalThumb = isPointInsideVerticalThumb(me.getX(), me.getY());
             boolean insideHorizontalThumb = isPointInsideHorizontalThumb(me.getX(), me.getY());
-            if (insideVerticalThumb || insideHorizontalThumb) {
+            boolean insideVerticalTrack = !insideVerticalThumb && !insideHorizontalThumb
+                    && mTrackTapJumpEnabled && isPointInsideVerticalTrack(me.getX(), me.getY());
+            if (insideVerticalThumb || insideHorizontalThumb || insideVerticalTrack) {
                 if (insideHorizontalThumb) {
                     dragState = DRAG_X;
                     mHorizontalDragX = (int) me.getX();
-                } else {//if (insideVerticalThumb) {
+                } else {//if (insideVerticalThumb || insideVerticalTrack) {
+                    if (insideVerticalTrack) {
+                        verticalTrackJumpTo(me.getY());
+                    }
                     dragState = DRAG_Y;
                     mVerticalDragY = (int) me.getY();
                 }
@@ -504,17 +1164,182 @@ public class FastScrollerEx extends RecyclerView.ItemDecoration implements Recyc
         if (Math.abs(mVerticalThumbCenterY - y) < 2) {
             return;
         }
-        int height = recyclerViewHeight;
-        if (mConsiderPadding) height -= recyclerView.getPaddingBottom();
+        int height = getVerticalVisibleLength(recyclerViewHeight);
+        int scrollRange = computeVerticalScrollRange();
+        int scrollOffset = computeVerticalScrollOffset();
         int scrollingBy = scrollTo(mVerticalDragY, y, scrollbarRange,
-                recyclerView.computeVerticalScrollRange(),
-                recyclerView.computeVerticalScrollOffset(), height);
+                scrollRange, scrollOffset, height);
         if (scrollingBy != 0) {
-            recyclerView.scrollBy(0, scrollingBy);
+            // scrollBy() lays out every item it passes, so on long lists a fast drag would bind
+            // all of them. Beyond a page, jump straight to the target instead.
+            if (Math.abs(scrollingBy) > height) {
+                verticalJumpTo(scrollOffset + scrollingBy, scrollRange);
+            } else {
+                recyclerView.scrollBy(0, scrollingBy);
+            }
         }
         mVerticalDragY = y;
     }
 
+    /**
+     * Jumps so that the vertical thumb would be centered at the given y of the track.
+     */
+    private void verticalTrackJumpTo(float y) {
+        int verticalContentLength = computeVerticalScrollRange();
+        int verticalVisibleLength = getVerticalVisibleLength(recyclerViewHeight);
+        int verticalTrackLength = getVerticalTrackLength(recyclerViewHeight);
+        int totalPossibleOffset = verticalContentLength - verticalVisibleLength;
+        if (totalPossibleOffset <= 0 || verticalTrackLength <= 0) {
+            return;
+        }
+        // Inverse of the thumb position computation of updateScrollGeometry()
+        float offsetY;
+        if (minThumbSize <= 0) {
+            offsetY = y * verticalContentLength / verticalTrackLength - verticalVisibleLength / 2.0f;
+        } else {
+            int thumbTravel = verticalTrackLength - mVerticalThumbHeight;
+            if (thumbTravel <= 0) {
+                return;
+            }
+            offsetY = (y - mVerticalThumbHeight / 2.0f) / thumbTravel * totalPossibleOffset;
+        }
+        offsetY = Math.max(0, Math.min(totalPossibleOffset, offsetY));
+        verticalJumpTo((int) offsetY, verticalContentLength);
+    }
+
+    /**
+     * Moves the RecyclerView to the given absolute vertical scroll offset with a single layout
+     * pass, by mapping the offset to an adapter position the same way the layout manager
+     * estimates its scroll range.
+     */
+    private void verticalJumpTo(int targetOffset, int scrollRange) {
+        RecyclerView.LayoutManager layoutManager = recyclerView.getLayoutManager();
+        RecyclerView.Adapter<?> adapter = recyclerView.getAdapter();
+        int itemCount = adapter == null ? 0 : adapter.getItemCount();
+        if (!(layoutManager instanceof LinearLayoutManager) || itemCount == 0 || scrollRange <= 0) {
+            recyclerView.scrollBy(0, targetOffset - computeVerticalScrollOffset());
+            return;
+        }
+        final int position;
+        final int offsetInItem;
+        ItemHeightCache itemHeightCache = getUsableItemHeightCache();
+        if (itemHeightCache != null && itemHeightCache.hasKnownHeights()) {
+            position = itemHeightCache.findPosition(targetOffset, itemCount);
+            offsetInItem = (int) (targetOffset - itemHeightCache.getEstimatedOffset(position));
+        } else {
+            float itemLength = scrollRange / (float) itemCount;
+            position = Math.min(itemCount - 1, (int) (targetOffset / itemLength));
+            offsetInItem = (int) (targetOffset - position * itemLength);
+        }
+        ((LinearLayoutManager) layoutManager).scrollToPositionWithOffset(position, -offsetInItem);
+        // A jump is a layout, not a scroll, so it isn't aligned by syncLinkedScroll()
+        for (int i = 0, size = mLinkedRecyclerViews.size(); i < size; ++i) {
+            RecyclerView.LayoutManager linkedLayoutManager =
+                    mLinkedRecyclerViews.get(i).getLayoutManager();
+            if (linkedLayoutManager instanceof LinearLayoutManager) {
+                ((LinearLayoutManager) linkedLayoutManager)
+                        .scrollToPositionWithOffset(position, -offsetInItem);
+            }
+        }
+    }
+
+    /**
+     * @return the height in which the content is visible, excluding the bottom padding if it's
+     * considered.
+     */
+    private int getVerticalVisibleLength(int height) {
+        if (mConsiderPadding) height -= recyclerView.getPaddingBottom();
+        return height;
+    }
+
+    /**
+     * @return the height of the vertical track, which also excludes the end inset.
+     */
+    private int getVerticalTrackLength(int height) {
+        return getVerticalVisibleLength(height) - mEndInset;
+    }
+
+    /**
+     * @return the item height cache, if set and supported by the layout manager.
+     */
+    @Nullable
+    private ItemHeightCache getUsableItemHeightCache() {
+        if (mItemHeightCache == null) {
+            return null;
+        }
+        RecyclerView.LayoutManager layoutManager = recyclerView.getLayoutManager();
+        if (!(layoutManager instanceof LinearLayoutManager)
+                || layoutManager instanceof GridLayoutManager) {
+            return null;
+        }
+        LinearLayoutManager linearLayoutManager = (LinearLayoutManager) layoutManager;
+        if (linearLayoutManager.getOrientation() != RecyclerView.VERTICAL
+                || linearLayoutManager.getReverseLayout()) {
+            return null;
+        }
+        return mItemHeightCache;
+    }
+
+    /**
+     * Stores the heights of the laid out items in the item height cache, if used.
+     */
+    private void recordItemHeights() {
+        ItemHeightCache itemHeightCache = getUsableItemHeightCache();
+        if (itemHeightCache == null) {
+            return;
+        }
+        RecyclerView.LayoutManager layoutManager = recyclerView.getLayoutManager();
+        for (int i = 0, childCount = recyclerView.getChildCount(); i < childCount; ++i) {
+            View child = recyclerView.getChildAt(i);
+            int position = recyclerView.getChildAdapterPosition(child);
+            if (position == RecyclerView.NO_POSITION) {
+                continue;
+            }
+            RecyclerView.LayoutParams layoutParams = (RecyclerView.LayoutParams) child.getLayoutParams();
+            int height = layoutManager.getDecoratedMeasuredHeight(child)
+                    + layoutParams.topMargin + layoutParams.bottomMargin;
+            itemHeightCache.put(position, recyclerView.getChildItemId(child), height);
+        }
+    }
+
+    /**
+     * Same as {@link RecyclerView#computeVerticalScrollRange()}, but using the item height cache
+     * when it has measured items.
+     */
+    private int computeVerticalScrollRange() {
+        ItemHeightCache itemHeightCache = getUsableItemHeightCache();
+        RecyclerView.Adapter<?> adapter = recyclerView.getAdapter();
+        if (itemHeightCache == null || adapter == null || !itemHeightCache.hasKnownHeights()) {
+            return recyclerView.computeVerticalScrollRange();
+        }
+        return (int) Math.min(Integer.MAX_VALUE,
+                itemHeightCache.getEstimatedRange(adapter.getItemCount()));
+    }
+
+    /**
+     * Same as {@link RecyclerView#computeVerticalScrollOffset()}, but using the item height cache
+     * when it has measured items.
+     */
+    private int computeVerticalScrollOffset() {
+        ItemHeightCache itemHeightCache = getUsableItemHeightCache();
+        if (itemHeightCache == null || recyclerView.getChildCount() == 0
+                || !itemHeightCache.hasKnownHeights()) {
+            return recyclerView.computeVerticalScrollOffset();
+        }
+        // Like LinearLayoutManager, but with the offset of the first child taken from the cache
+        View firstChild = recyclerView.getChildAt(0);
+        int position = recyclerView.getChildAdapterPosition(firstChild);
+        if (position == RecyclerView.NO_POSITION) {
+            return recyclerView.computeVerticalScrollOffset();
+        }
+        RecyclerView.LayoutParams layoutParams =
+                (RecyclerView.LayoutParams) firstChild.getLayoutParams();
+        int childStart = recyclerView.getLayoutManager().getDecoratedTop(firstChild)
+                - layoutParams.topMargin;
+        return (int) Math.min(Integer.MAX_VALUE, itemHeightCache.getEstimatedOffset(position)
+                + recyclerView.getPaddingTop() - childStart);
+    }
+
     private void horizontalScrollTo(float x) {
         final int[] scrollbarRange = getHorizontalRange();
         x = Math.max(scrollbarRange[0], Math.min(scrollbarRange[1], x));
@@ -557,6 +1382,12 @@ public class FastScrollerEx extends RecyclerView.ItemDecoration implements Recyc
                 && y <= mVerticalThumbCenterY + mVerticalThumbHeight / 2f;
     }
 
+    private boolean isPointInsideVerticalTrack(float x, float y) {
+        return (isLayoutRTL() ? x <= mVerticalThumbWidth / 2f
+                : x >= recyclerViewWidth - mVerticalThumbWidth)
+                && y >= 0 && y <= getVerticalTrackLength(recyclerViewHeight);
+    }
+
     @VisibleForTesting
     private boolean isPointInsideHorizontalThumb(float x, float y) {
         return (y >= recyclerViewHeight - mHorizontalThumbHeight)
@@ -589,8 +1420,7 @@ public class FastScrollerEx extends RecyclerView.ItemDecoration implements Recyc
      */
     private int[] getVerticalRange() {
         mVerticalRange[0] = mMargin;
-        mVerticalRange[1] = recyclerViewHeight - mMargin;
-        if (mConsiderPadding) mVerticalRange[1] -= recyclerView.getPaddingBottom();
+        mVerticalRange[1] = getVerticalTrackLength(recyclerViewHeight) - mMargin;
         return mVerticalRange;
     }
 
@@ -644,4 +1474,101 @@ public class FastScrollerEx extends RecyclerView.ItemDecoration implements Recyc
             requestRedraw();
         }
     }
+
+    /**
+     * Updates the scroller on scrolls of the main RecyclerView, and aligns the linked ones to it.
+     */
+    private class ScrollListener extends RecyclerView.OnScrollListener {
+        ScrollListener() {
+        }
+
+        @Override
+        public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
+            if (dy != 0 && !mSyncingScroll && !mLinkedRecyclerViews.isEmpty()) {
+                syncLinkedScroll(recyclerView, dy);
+            }
+            updateScrollPosition(recyclerView.computeHorizontalScrollOffset(),
+                    computeVerticalScrollOffset());
+        }
+
+        @Override
+        public void onScrollStateChanged(@NonNull RecyclerView recyclerView, int newState) {
+            // Fixes what the scroll may have left misaligned (e.g. a linked one that got stuck)
+            if (newState == RecyclerView.SCROLL_STATE_IDLE && !mSyncingScroll
+                    && !mLinkedRecyclerViews.isEmpty()) {
+                syncLinkedScroll(recyclerView, 0);
+            }
+        }
+    }
+
+    /**
+     * Aligns the main RecyclerView and the other linked ones to a scrolled linked one.
+     */
+    private class LinkedScrollListener extends RecyclerView.OnScrollListener {
+        LinkedScrollListener() {
+        }
+
+        @Override
+        public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+            if (dy != 0 && !mSyncingScroll) {
+                syncLinkedScroll(recyclerView, dy);
+            }
+        }
+
+        @Override
+        public void onScrollStateChanged(@NonNull RecyclerView linkedRecyclerView, int newState) {
+            // Once settled, all of them are aligned to the main one
+            if (newState == RecyclerView.SCROLL_STATE_IDLE && !mSyncingScroll
+                    && recyclerView != null) {
+                syncLinkedScroll(recyclerView, 0);
+            }
+        }
+    }
+
+    /**
+     * Marks the geometry as stale on any adapter change, and keeps the stored item heights at the
+     * positions of their items.
+     */
+    private class AdapterChangeObserver extends RecyclerView.AdapterDataObserver {
+        AdapterChangeObserver() {
+        }
+
+        @Override
+        public void onChanged() {
+            onAdapterDataChanged();
+        }
+
+        @Override
+        public void onItemRangeChanged(int positionStart, int itemCount) {
+            if (mItemHeightCache != null) {
+                mItemHeightCache.onItemRangeChanged(positionStart, itemCount);
+            }
+            onAdapterDataChanged();
+        }
+
+        @Override
+        public void onItemRangeInserted(int positionStart, int itemCount) {
+            if (mItemHeightCache != null && mObservedAdapter != null) {
+                mItemHeightCache.onItemRangeInserted(positionStart, itemCount,
+                        mObservedAdapter.getItemCount());
+            }
+            onAdapterDataChanged();
+        }
+
+        @Override
+        public void onItemRangeRemoved(int positionStart, int itemCount) {
+            if (mItemHeightCache != null) {
+                mItemHeightCache.onItemRangeRemoved(positionStart, itemCount);
+            }
+            onAdapterDataChanged();
+        }
+
+        @Override
+        public void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
+            if (mItemHeightCache != null) {
+                mItemHeightCache.onItemRangeMoved(fromPosition, toPosition, itemCount);
+            }
+            onAdapterDataChanged();
+        }
+    }
 }
@@ -0,0 +1,39 @@
+package com.lb.fast_scroller_and_recycler_view_fixes_library
+
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.channels.awaitClose
+import kotlinx.coroutines.flow.SharingStarted
+import kotlinx.coroutines.flow.StateFlow
+import kotlinx.coroutines.flow.callbackFlow
+import kotlinx.coroutines.flow.conflate
+import kotlinx.coroutines.flow.stateIn
+
+/**
+ * Immutable copy of [FastScrollerEx.ScrollSnapshot], for use in flows.
+ */
+data class ScrollState(
+        val offset: Int,
+        val range: Int,
+        val thumbFraction: Float,
+        val firstVisiblePosition: Int,
+        val lastVisiblePosition: Int,
+        val isDragging: Boolean
+)
+
+fun FastScrollerEx.ScrollSnapshot.toScrollState(): ScrollState =
+        ScrollState(offset, range, thumbFraction, firstVisiblePosition, lastVisiblePosition, isDragging)
+
+/**
+ * Exposes the scroll state of the [FastScrollerEx] as a [StateFlow], so that several consumers can
+ * share the computation the scroller already does on each frame.
+ *
+ * The listener is registered only while the flow has subscribers.
+ *
+ * @param scope Scope to share the flow in. Should use the main dispatcher (e.g. lifecycleScope).
+ */
+fun FastScrollerEx.scrollStateFlow(scope: CoroutineScope): StateFlow<ScrollState> =
+        callbackFlow {
+            val listener = FastScrollerEx.OnScrollSnapshotListener { trySend(it.toScrollState()) }
+            addOnScrollSnapshotListener(listener)
+            awaitClose { removeOnScrollSnapshotListener(listener) }
+        }.conflate().stateIn(scope, SharingStarted.WhileSubscribed(), scrollSnapshot.toScrollState())
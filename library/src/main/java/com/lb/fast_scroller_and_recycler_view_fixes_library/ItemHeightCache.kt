@@ -0,0 +1,454 @@
+package com.lb.fast_scroller_and_recycler_view_fixes_library
+
+import android.content.Context
+import androidx.annotation.MainThread
+import androidx.recyclerview.widget.RecyclerView
+import java.io.Closeable
+import java.io.File
+import java.io.IOException
+import java.io.RandomAccessFile
+import java.nio.MappedByteBuffer
+import java.nio.channels.FileChannel
+
+/**
+ * On-disk cache of measured item heights of a vertical list, so that [FastScrollerEx] can show an
+ * exact thumb on the first frame, instead of one based on the few items that were laid out.
+ *
+ * The file is memory-mapped and holds only primitive arrays, indexed by adapter position:
+ * - the stable id of the item that was measured at each position, so that [put] replaces an entry
+ *   of another item, and [getHeight] rejects it
+ * - the measured height of each position (0 for unknown)
+ * - two Fenwick trees over those, of the heights and of the count of known heights
+ *
+ * So opening it is O(1) (no parsing), and storing a height or getting the offset of a position is
+ * O(log n), written straight to the mapped file as rows get measured. Inserts, removals, moves and
+ * growth shift the entries in O(n), and leave the trees to be rebuilt, also in O(n), on the next
+ * query, so that a burst of adapter changes rebuilds them once.
+ *
+ * Positions are only meaningful for a given content, so the caller provides a content version:
+ * when it doesn't match the stored one, the cache starts empty. Granular adapter changes (inserts,
+ * removals, moves, changes) are followed by [FastScrollerEx], which forwards them to the
+ * onItemRange* methods, but notifyDataSetChanged() can't be: when the content changed that way,
+ * the cache should be opened again with another content version.
+ *
+ * Not thread safe: meant to be used on the main thread, together with the RecyclerView.
+ */
+@MainThread
+class ItemHeightCache private constructor(file: File, private val contentVersion: Long, capacity: Int) : Closeable {
+    private var randomAccessFile: RandomAccessFile
+    private var buffer: MappedByteBuffer
+    private var capacity: Int
+    private var idsStart = 0
+    private var heightsStart = 0
+    private var heightSumsStart = 0
+    private var knownCountsStart = 0
+    /**
+     * Whether the trees don't match the heights anymore, and have to be rebuilt before use. Also
+     * stored in the file, as [TREES_DIRTY_MAGIC], so that it still holds when opened again.
+     */
+    private var treesDirty = false
+
+    init {
+        randomAccessFile = RandomAccessFile(file, "rw")
+        val existingCapacity = readValidCapacity(randomAccessFile, contentVersion)
+        if (existingCapacity < 0) {
+            // Invalid, outdated, or new: start empty
+            this.capacity = capacity
+            buffer = recreate(capacity)
+        } else {
+            this.capacity = existingCapacity
+            buffer = map(randomAccessFile, existingCapacity)
+            treesDirty = buffer.getInt(0) == TREES_DIRTY_MAGIC
+            ensureCapacity(capacity)
+        }
+    }
+
+    /**
+     * Makes sure positions up to [itemCount] can be stored, growing the file in place if needed,
+     * with room for half as many more items. Growing is O(n), so it's done when the item count
+     * changes, not when heights are stored.
+     */
+    fun ensureCapacity(itemCount: Int) {
+        if (itemCount <= capacity)
+            return
+        val oldCapacity = capacity
+        val oldHeightsStart = heightsStart
+        // Marked invalid until the arrays are in place again, in case the process dies meanwhile
+        buffer.putInt(4, 0)
+        val newCapacity = itemCount + itemCount / 2
+        randomAccessFile.setLength(fileSize(newCapacity))
+        buffer = map(randomAccessFile, newCapacity)
+        // The ids stay in place, and the heights move forward, after the longer ids array
+        for (position in oldCapacity - 1 downTo 0)
+            buffer.putInt(heightsStart + position * 4, buffer.getInt(oldHeightsStart + position * 4))
+        clearEntries(oldCapacity, newCapacity)
+        markTreesDirty()
+        buffer.putInt(4, newCapacity)
+    }
+
+    /**
+     * Moves the stored heights after [positionStart] forward, to match items that were inserted
+     * into the adapter. Meant to be called from [RecyclerView.AdapterDataObserver.onItemRangeInserted].
+     *
+     * @param totalItemCount The item count of the adapter, after the insertion.
+     */
+    fun onItemRangeInserted(positionStart: Int, itemCount: Int, totalItemCount: Int) {
+        if (positionStart < 0 || itemCount <= 0)
+            return
+        ensureCapacity(totalItemCount)
+        if (positionStart >= capacity || !hasKnownHeightsFrom(positionStart))
+            return
+        val end = minOf(positionStart + itemCount, capacity)
+        for (position in capacity - 1 downTo end)
+            copyEntry(position - itemCount, position)
+        clearEntries(positionStart, end)
+        markTreesDirty()
+    }
+
+    /**
+     * Moves the stored heights after the removed items backward, to match items that were removed
+     * from the adapter. Meant to be called from [RecyclerView.AdapterDataObserver.onItemRangeRemoved].
+     */
+    fun onItemRangeRemoved(positionStart: Int, itemCount: Int) {
+        if (positionStart < 0 || itemCount <= 0 || positionStart >= capacity
+                || !hasKnownHeightsFrom(positionStart))
+            return
+        val shiftedEnd = maxOf(positionStart, capacity - itemCount)
+        for (position in positionStart until shiftedEnd)
+            copyEntry(position + itemCount, position)
+        clearEntries(shiftedEnd, capacity)
+        markTreesDirty()
+    }
+
+    /**
+     * Moves the stored heights to match moved items. Meant to be called from
+     * [RecyclerView.AdapterDataObserver.onItemRangeMoved], which RecyclerView calls for single
+     * items. The heights of the range are forgotten for other counts.
+     */
+    fun onItemRangeMoved(fromPosition: Int, toPosition: Int, itemCount: Int) {
+        val start = minOf(fromPosition, toPosition)
+        val end = minOf(maxOf(fromPosition, toPosition) + itemCount, capacity)
+        if (start < 0 || start >= end || fromPosition == toPosition || !hasKnownHeightsFrom(start))
+            return
+        if (itemCount != 1) {
+            clearEntries(start, end)
+        } else if (fromPosition < capacity && toPosition < capacity) {
+            val idOffset = idsStart + fromPosition * 8
+            val heightOffset = heightsStart + fromPosition * 4
+            val itemId = buffer.getLong(idOffset)
+            val height = buffer.getInt(heightOffset)
+            if (fromPosition < toPosition) {
+                for (position in fromPosition until toPosition)
+                    copyEntry(position + 1, position)
+            } else {
+                for (position in fromPosition downTo toPosition + 1)
+                    copyEntry(position - 1, position)
+            }
+            buffer.putLong(idsStart + toPosition * 8, itemId)
+            buffer.putInt(heightsStart + toPosition * 4, height)
+        } else {
+            clearEntries(start, end)
+        }
+        markTreesDirty()
+    }
+
+    /**
+     * Forgets the stored heights of changed items, as they may have a different height now. Meant
+     * to be called from [RecyclerView.AdapterDataObserver.onItemRangeChanged].
+     */
+    fun onItemRangeChanged(positionStart: Int, itemCount: Int) {
+        val end = minOf(positionStart + itemCount, capacity)
+        if (maxOf(positionStart, 0) < end)
+            ensureTrees()
+        for (position in maxOf(positionStart, 0) until end) {
+            val heightOffset = heightsStart + position * 4
+            val oldHeight = buffer.getInt(heightOffset)
+            if (oldHeight != 0) {
+                buffer.putInt(heightOffset, 0)
+                addToTrees(position, -oldHeight.toLong(), -1)
+            }
+        }
+    }
+
+    /**
+     * @return the stored height of the item at [position], or -1 if unknown, or if it was measured
+     * for another item id.
+     */
+    fun getHeight(position: Int, itemId: Long): Int {
+        if (position < 0 || position >= capacity)
+            return -1
+        val height = buffer.getInt(heightsStart + position * 4)
+        if (height == 0 || buffer.getLong(idsStart + position * 8) != itemId)
+            return -1
+        return height - 1
+    }
+
+    /**
+     * Stores the measured height of the item at [position]. Does nothing if it didn't change, or
+     * if the position is beyond the capacity (see [ensureCapacity]).
+     *
+     * If the stored entry was measured for another item id (the content changed in a way that
+     * couldn't be followed, such as notifyDataSetChanged()), it's replaced, so the estimates use
+     * the height of the item that is there now. Without stable ids, all ids are
+     * [RecyclerView.NO_ID], and only the heights are compared.
+     */
+    fun put(position: Int, itemId: Long, height: Int) {
+        if (position < 0 || position >= capacity || height < 0)
+            return
+        val heightOffset = heightsStart + position * 4
+        val idOffset = idsStart + position * 8
+        val oldHeight = buffer.getInt(heightOffset)
+        // Heights are stored plus one, so that 0 means unknown
+        val newHeight = height + 1
+        val sameItem = oldHeight == 0 || buffer.getLong(idOffset) == itemId
+        if (sameItem && oldHeight == newHeight)
+            return
+        ensureTrees()
+        buffer.putLong(idOffset, itemId)
+        buffer.putInt(heightOffset, newHeight)
+        addToTrees(position, newHeight.toLong() - oldHeight, if (oldHeight == 0) 1 else 0)
+    }
+
+    /**
+     * @return the estimated vertical offset of the top of the item at [position], using the
+     * average of the known heights for items that weren't measured.
+     */
+    fun getEstimatedOffset(position: Int): Long {
+        val end = position.coerceIn(0, capacity)
+        val knownCount = getKnownCountBefore(end)
+        val knownSum = getKnownSumBefore(end) - knownCount // Heights are stored plus one
+        val unknownCount = position - knownCount
+        if (unknownCount <= 0)
+            return knownSum
+        // Unknown items are estimated with the average of all known heights
+        val totalKnownCount = getKnownCountBefore(capacity)
+        if (totalKnownCount == 0)
+            return knownSum
+        val totalKnownSum = getKnownSumBefore(capacity) - totalKnownCount
+        return knownSum + unknownCount * totalKnownSum / totalKnownCount
+    }
+
+    /**
+     * @return the estimated total height of the first [itemCount] items.
+     */
+    fun getEstimatedRange(itemCount: Int): Long = getEstimatedOffset(itemCount)
+
+    /**
+     * @return the position of the item that contains the given vertical [offset], according to
+     * [getEstimatedOffset].
+     */
+    fun findPosition(offset: Long, itemCount: Int): Int {
+        if (itemCount <= 0)
+            return RecyclerView.NO_POSITION
+        var low = 0
+        var high = itemCount - 1
+        while (low < high) {
+            val middle = (low + high + 1) ushr 1
+            if (getEstimatedOffset(middle) <= offset)
+                low = middle
+            else
+                high = middle - 1
+        }
+        return low
+    }
+
+    /**
+     * @return whether at least one height is known, so the estimates are based on real items.
+     */
+    fun hasKnownHeights(): Boolean = getKnownCountBefore(capacity) > 0
+
+    /**
+     * Forgets all stored heights.
+     */
+    fun clear() {
+        buffer = recreate(capacity)
+        treesDirty = false
+    }
+
+    /**
+     * Writes pending changes to the disk. The OS writes them by itself too, eventually.
+     */
+    fun flush() {
+        buffer.force()
+    }
+
+    override fun close() {
+        buffer.force()
+        randomAccessFile.close()
+    }
+
+    /**
+     * @return whether positions from [position] on may have known heights. Assumed when the trees
+     * are dirty, so that shifts don't rebuild them.
+     */
+    private fun hasKnownHeightsFrom(position: Int): Boolean =
+            treesDirty || getKnownCountBefore(capacity) > getKnownCountBefore(position)
+
+    private fun copyEntry(fromPosition: Int, toPosition: Int) {
+        buffer.putLong(idsStart + toPosition * 8, buffer.getLong(idsStart + fromPosition * 8))
+        buffer.putInt(heightsStart + toPosition * 4, buffer.getInt(heightsStart + fromPosition * 4))
+    }
+
+    /**
+     * Clears the ids and heights of positions from [start] to [end], without updating the trees.
+     */
+    private fun clearEntries(start: Int, end: Int) {
+        for (position in start until end) {
+            buffer.putLong(idsStart + position * 8, 0L)
+            buffer.putInt(heightsStart + position * 4, 0)
+        }
+    }
+
+    private fun markTreesDirty() {
+        if (treesDirty)
+            return
+        treesDirty = true
+        buffer.putInt(0, TREES_DIRTY_MAGIC)
+    }
+
+    /**
+     * Rebuilds the trees if they're dirty.
+     */
+    private fun ensureTrees() {
+        if (!treesDirty)
+            return
+        rebuildTrees()
+        treesDirty = false
+        buffer.putInt(0, MAGIC)
+    }
+
+    /**
+     * Rebuilds both Fenwick trees from the heights, in O(n): each node starts with its own value,
+     * and is then added to its parent, which comes after it.
+     */
+    private fun rebuildTrees() {
+        for (position in 0 until capacity) {
+            val height = buffer.getInt(heightsStart + position * 4)
+            buffer.putLong(heightSumsStart + position * 8, height.toLong())
+            buffer.putInt(knownCountsStart + position * 4, if (height == 0) 0 else 1)
+        }
+        for (index in 1..capacity) {
+            val parent = index + (index and -index)
+            if (parent > capacity)
+                continue
+            val sumOffset = heightSumsStart + (parent - 1) * 8
+            buffer.putLong(sumOffset, buffer.getLong(sumOffset) + buffer.getLong(heightSumsStart + (index - 1) * 8))
+            val countOffset = knownCountsStart + (parent - 1) * 4
+            buffer.putInt(countOffset, buffer.getInt(countOffset) + buffer.getInt(knownCountsStart + (index - 1) * 4))
+        }
+    }
+
+    /**
+     * Adds to both trees at [position]. They must have been rebuilt ([ensureTrees]) before the
+     * height was changed, or the change would be counted twice.
+     */
+    private fun addToTrees(position: Int, heightDelta: Long, countDelta: Int) {
+        var index = position + 1
+        while (index <= capacity) {
+            val sumOffset = heightSumsStart + (index - 1) * 8
+            buffer.putLong(sumOffset, buffer.getLong(sumOffset) + heightDelta)
+            if (countDelta != 0) {
+                val countOffset = knownCountsStart + (index - 1) * 4
+                buffer.putInt(countOffset, buffer.getInt(countOffset) + countDelta)
+            }
+            index += index and -index
+        }
+    }
+
+    /**
+     * @return the sum of the stored (plus one) heights of positions before [end].
+     */
+    private fun getKnownSumBefore(end: Int): Long {
+        ensureTrees()
+        var sum = 0L
+        var index = end
+        while (index > 0) {
+            sum += buffer.getLong(heightSumsStart + (index - 1) * 8)
+            index -= index and -index
+        }
+        return sum
+    }
+
+    private fun getKnownCountBefore(end: Int): Int {
+        ensureTrees()
+        var count = 0
+        var index = end
+        while (index > 0) {
+            count += buffer.getInt(knownCountsStart + (index - 1) * 4)
+            index -= index and -index
+        }
+        return count
+    }
+
+    /**
+     * Truncates the file and maps it again, empty, with the given capacity. setLength() fills it
+     * with zeroes, which stand for unknown heights and empty trees.
+     */
+    private fun recreate(capacity: Int): MappedByteBuffer {
+        randomAccessFile.setLength(0)
+        randomAccessFile.setLength(fileSize(capacity))
+        val buffer = map(randomAccessFile, capacity)
+        buffer.putInt(0, MAGIC)
+        buffer.putInt(4, capacity)
+        buffer.putLong(8, contentVersion)
+        return buffer
+    }
+
+    private fun map(randomAccessFile: RandomAccessFile, capacity: Int): MappedByteBuffer {
+        this.capacity = capacity
+        computeOffsets()
+        return randomAccessFile.channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize(capacity))
+    }
+
+    private fun computeOffsets() {
+        idsStart = HEADER_SIZE
+        heightsStart = idsStart + capacity * 8
+        heightSumsStart = heightsStart + capacity * 4
+        knownCountsStart = heightSumsStart + capacity * 8
+    }
+
+    companion object {
+        private const val MAGIC = 0x46534843 // "FSHC"
+        private const val TREES_DIRTY_MAGIC = 0x46534844 // "FSHD"
+        private const val HEADER_SIZE = 16
+        private const val DIRECTORY_NAME = "fast_scroller_item_heights"
+
+        /**
+         * Opens (or creates) the cache of the given list.
+         *
+         * @param listId         Identifies the list, among the lists of the app.
+         * @param contentVersion Version of the list content. Stored heights of other versions are
+         *                       dropped.
+         * @param itemCount      Current number of items, to allocate the file in advance.
+         * @throws IOException if the file couldn't be created or mapped.
+         */
+        @JvmStatic
+        @Throws(IOException::class)
+        fun open(context: Context, listId: String, contentVersion: Long, itemCount: Int): ItemHeightCache {
+            val directory = File(context.cacheDir, DIRECTORY_NAME)
+            if (!directory.isDirectory && !directory.mkdirs())
+                throw IOException("could not create $directory")
+            val fileName = listId.replace(Regex("[^A-Za-z0-9._-]"), "_")
+            return ItemHeightCache(File(directory, fileName), contentVersion, maxOf(itemCount, 16))
+        }
+
+        /**
+         * @return the capacity of the given file, or -1 if it isn't a valid cache of this version.
+         */
+        private fun readValidCapacity(randomAccessFile: RandomAccessFile, contentVersion: Long): Int {
+            if (randomAccessFile.length() < HEADER_SIZE)
+                return -1
+            randomAccessFile.seek(0)
+            val magic = randomAccessFile.readInt()
+            if (magic != MAGIC && magic != TREES_DIRTY_MAGIC)
+                return -1
+            val capacity = randomAccessFile.readInt()
+            if (capacity <= 0 || randomAccessFile.readLong() != contentVersion
+                    || randomAccessFile.length() != fileSize(capacity))
+                return -1
+            return capacity
+        }
+
+        private fun fileSize(capacity: Int): Long = HEADER_SIZE + capacity * 24L
+    }
+}
@@ -0,0 +1,79 @@
+package com.lb.fast_scroller_and_recycler_view_fixes_library
+
+import org.junit.Assert.assertTrue
+import org.junit.Assert.fail
+import org.junit.Test
+import java.io.File
+import java.lang.reflect.Constructor
+import java.lang.reflect.Method
+
+/**
+ * Checks that every rule of the baseline profile still matches a class or a method of the library,
+ * as a rule that doesn't match anything is silently ignored by the profile installer.
+ */
+class BaselineProfileTest {
+    @Test
+    fun everyRuleResolves() {
+        val rules = File(PROFILE_PATH).readLines().map { it.trim() }.filter { it.isNotEmpty() && !it.startsWith("#") }
+        assertTrue("no rules in $PROFILE_PATH", rules.isNotEmpty())
+        val unresolved = rules.filterNot { resolves(it) }
+        if (unresolved.isNotEmpty())
+            fail("unresolved rules:\n" + unresolved.joinToString("\n"))
+    }
+
+    private fun resolves(rule: String): Boolean {
+        // Methods are prefixed with their flags (any of H, S, P), classes have none
+        val descriptor = rule.trimStart('H', 'S', 'P')
+        val arrowIndex = descriptor.indexOf("->")
+        val classDescriptor = if (arrowIndex < 0) descriptor else descriptor.substring(0, arrowIndex)
+        val clazz = loadClass(classDescriptor) ?: return false
+        if (arrowIndex < 0)
+            return true
+        val member = descriptor.substring(arrowIndex + 2)
+        val name = member.substringBefore('(')
+        val signature = member.substring(name.length)
+        if (name == "**")
+            return clazz.declaredMethods.isNotEmpty()
+        if (name == "<init>")
+            return clazz.declaredConstructors.any { getDescriptor(it) == signature }
+        return clazz.declaredMethods.any { it.name == name && getDescriptor(it) == signature }
+    }
+
+    private fun loadClass(classDescriptor: String): Class<*>? {
+        if (!classDescriptor.startsWith("L") || !classDescriptor.endsWith(";"))
+            return null
+        val className = classDescriptor.substring(1, classDescriptor.length - 1).replace('/', '.')
+        return try {
+            Class.forName(className, false, javaClass.classLoader)
+        } catch (e: ClassNotFoundException) {
+            null
+        }
+    }
+
+    private fun getDescriptor(method: Method): String =
+            method.parameterTypes.joinToString("", "(", ")") { getDescriptor(it) } + getDescriptor(method.returnType)
+
+    private fun getDescriptor(constructor: Constructor<*>): String =
+            constructor.parameterTypes.joinToString("", "(", ")V") { getDescriptor(it) }
+
+    private fun getDescriptor(type: Class<*>): String = when {
+        type.isArray -> "[" + getDescriptor(type.componentType!!)
+        type == Void.TYPE -> "V"
+        type == java.lang.Boolean.TYPE -> "Z"
+        type == java.lang.Byte.TYPE -> "B"
+        type == java.lang.Character.TYPE -> "C"
+        type == java.lang.Short.TYPE -> "S"
+        type == Integer.TYPE -> "I"
+        type == java.lang.Long.TYPE -> "J"
+        type == java.lang.Float.TYPE -> "F"
+        type == java.lang.Double.TYPE -> "D"
+        else -> "L" + type.name.replace('.', '/') + ";"
+    }
+
+    companion object {
+        /**
+         * Relative to the module directory, which is the working directory of its unit tests.
+         */
+        private const val PROFILE_PATH = "src/main/baseline-prof.txt"
+    }
+}
@@ -0,0 +1,157 @@
+package com.lb.fast_scroller_and_recycler_view_fixes_library
+
+import android.content.Context
+import android.graphics.Bitmap
+import android.graphics.Canvas
+import android.graphics.drawable.ColorDrawable
+import android.graphics.drawable.StateListDrawable
+import android.os.SystemClock
+import android.view.MotionEvent
+import android.view.View
+import android.view.ViewGroup
+import androidx.recyclerview.widget.GridLayoutManager
+import androidx.recyclerview.widget.LinearLayoutManager
+import androidx.recyclerview.widget.RecyclerView
+import androidx.test.core.app.ApplicationProvider
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+
+/**
+ * Checks how much work a fast-scroll drag from the top to the bottom of the list costs, in binds,
+ * view creations and layout passes. The bounds only depend on the screen and on the number of
+ * touch events, not on the number of items, so a drag that gets O(n) fails here.
+ */
+@RunWith(RobolectricTestRunner::class)
+class FastScrollerExBindBudgetTest {
+    private class Counters {
+        var creates = 0
+        var binds = 0
+        var layouts = 0
+
+        fun reset() {
+            creates = 0
+            binds = 0
+            layouts = 0
+        }
+    }
+
+    private class CountingAdapter(private val count: Int, private val counters: Counters) : RecyclerView.Adapter<RecyclerView.ViewHolder>() {
+        override fun onCreateViewHolder(parent: ViewGroup, viewType: Int): RecyclerView.ViewHolder {
+            ++counters.creates
+            val view = View(parent.context)
+            view.layoutParams = RecyclerView.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, ITEM_HEIGHT)
+            return object : RecyclerView.ViewHolder(view) {
+            }
+        }
+
+        override fun onBindViewHolder(holder: RecyclerView.ViewHolder, position: Int) {
+            ++counters.binds
+        }
+
+        override fun getItemCount(): Int = count
+    }
+
+    private class CountingLinearLayoutManager(context: Context, private val counters: Counters) : LinearLayoutManager(context) {
+        override fun onLayoutChildren(recycler: RecyclerView.Recycler, state: RecyclerView.State) {
+            ++counters.layouts
+            super.onLayoutChildren(recycler, state)
+        }
+    }
+
+    private class CountingGridLayoutManager(context: Context, spanCount: Int, private val counters: Counters) : GridLayoutManager(context, spanCount) {
+        override fun onLayoutChildren(recycler: RecyclerView.Recycler, state: RecyclerView.State) {
+            ++counters.layouts
+            super.onLayoutChildren(recycler, state)
+        }
+    }
+
+    @Test
+    fun linear10k() = assertDragBudget(10_000, 1)
+
+    @Test
+    fun linear100k() = assertDragBudget(100_000, 1)
+
+    @Test
+    fun linear1m() = assertDragBudget(1_000_000, 1)
+
+    @Test
+    fun grid10k() = assertDragBudget(10_000, GRID_SPAN_COUNT)
+
+    @Test
+    fun grid100k() = assertDragBudget(100_000, GRID_SPAN_COUNT)
+
+    @Test
+    fun grid1m() = assertDragBudget(1_000_000, GRID_SPAN_COUNT)
+
+    private fun assertDragBudget(itemCount: Int, spanCount: Int) {
+        val context = ApplicationProvider.getApplicationContext<Context>()
+        val counters = Counters()
+        val recyclerView = RecyclerView(context)
+        recyclerView.layoutManager =
+                if (spanCount == 1) CountingLinearLayoutManager(context, counters)
+                else CountingGridLayoutManager(context, spanCount, counters)
+        recyclerView.adapter = CountingAdapter(itemCount, counters)
+        val fastScroller = FastScrollerEx(recyclerView, StateListDrawable(), ColorDrawable(),
+                StateListDrawable(), ColorDrawable(), THICKNESS, 0, 0, true, MIN_THUMB_SIZE)
+        layout(recyclerView)
+        // The first draw gets the size, and the scrolls after it compute the thumb
+        recyclerView.draw(Canvas(Bitmap.createBitmap(WIDTH, HEIGHT, Bitmap.Config.ARGB_8888)))
+        recyclerView.scrollBy(0, 1)
+        recyclerView.scrollBy(0, -1)
+        layoutIfNeeded(recyclerView)
+        assertTrue(fastScroller.isVisible)
+        counters.reset()
+
+        val x = WIDTH - THICKNESS / 2f
+        val downTime = SystemClock.uptimeMillis()
+        val down = MotionEvent.obtain(downTime, downTime, MotionEvent.ACTION_DOWN, x, 1f, 0)
+        assertTrue(fastScroller.onInterceptTouchEvent(recyclerView, down))
+        assertTrue(fastScroller.isDragging)
+        for (step in 1..MOVES) {
+            val y = 1f + (HEIGHT - 2f) * step / MOVES
+            val move = MotionEvent.obtain(downTime, downTime + step * 16L, MotionEvent.ACTION_MOVE, x, y, 0)
+            fastScroller.onTouchEvent(recyclerView, move)
+            move.recycle()
+            layoutIfNeeded(recyclerView)
+        }
+        val up = MotionEvent.obtain(downTime, downTime + (MOVES + 1) * 16L, MotionEvent.ACTION_UP, x, HEIGHT - 1f, 0)
+        fastScroller.onTouchEvent(recyclerView, up)
+        down.recycle()
+        up.recycle()
+
+        val firstVisiblePosition = (recyclerView.layoutManager as LinearLayoutManager).findFirstVisibleItemPosition()
+        assertTrue("drag ended at $firstVisiblePosition of $itemCount", firstVisiblePosition >= itemCount * 9L / 10)
+        // Each touch event may replace at most a screen of items, plus a row on each side
+        val itemsPerScreen = (HEIGHT / ITEM_HEIGHT + 2) * spanCount
+        val maxBinds = MOVES * itemsPerScreen
+        assertTrue("${counters.binds} binds > $maxBinds", counters.binds <= maxBinds)
+        assertTrue("${counters.creates} creates > $maxBinds", counters.creates <= maxBinds)
+        assertTrue("${counters.layouts} layout passes > ${MOVES + 1}", counters.layouts <= MOVES + 1)
+    }
+
+    private fun layout(recyclerView: RecyclerView) {
+        recyclerView.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY))
+        recyclerView.layout(0, 0, WIDTH, HEIGHT)
+    }
+
+    /**
+     * Runs the layout pass that the next frame would run, as jumps only request it.
+     */
+    private fun layoutIfNeeded(recyclerView: RecyclerView) {
+        if (recyclerView.isLayoutRequested)
+            layout(recyclerView)
+    }
+
+    companion object {
+        private const val WIDTH = 1080
+        private const val HEIGHT = 1920
+        private const val ITEM_HEIGHT = 50
+        private const val THICKNESS = 20
+        private const val MIN_THUMB_SIZE = 100
+        private const val GRID_SPAN_COUNT = 2
+        private const val MOVES = 50
+    }
+}
@@ -0,0 +1,135 @@
+package com.lb.fast_scroller_and_recycler_view_fixes_library
+
+import android.app.Activity
+import android.graphics.drawable.ColorDrawable
+import android.graphics.drawable.StateListDrawable
+import android.os.Looper
+import android.view.View
+import android.view.ViewGroup
+import androidx.activity.ComponentActivity
+import androidx.lifecycle.LifecycleRegistry
+import androidx.recyclerview.widget.LinearLayoutManager
+import androidx.recyclerview.widget.RecyclerView
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.Robolectric
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.Shadows.shadowOf
+import java.lang.ref.WeakReference
+
+/**
+ * Checks that once detached (manually, or by its lifecycle), a [FastScrollerEx] doesn't keep the
+ * RecyclerView and its Activity in memory, even with a pending hide and a running animation, and
+ * while the scroller itself is still referenced.
+ */
+@RunWith(RobolectricTestRunner::class)
+class FastScrollerExLeakTest {
+    private class References(val fastScroller: FastScrollerEx, val recyclerView: WeakReference<RecyclerView>, val activity: WeakReference<Activity>)
+
+    private class SimpleAdapter : RecyclerView.Adapter<RecyclerView.ViewHolder>() {
+        override fun onCreateViewHolder(parent: ViewGroup, viewType: Int): RecyclerView.ViewHolder {
+            val view = View(parent.context)
+            view.layoutParams = RecyclerView.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, ITEM_HEIGHT)
+            return object : RecyclerView.ViewHolder(view) {
+            }
+        }
+
+        override fun onBindViewHolder(holder: RecyclerView.ViewHolder, position: Int) {
+        }
+
+        override fun getItemCount(): Int = ITEM_COUNT
+    }
+
+    @Test
+    fun detachReleasesRecyclerViewAndActivity() {
+        val references = showAndRelease(false)
+        assertReleased(references)
+    }
+
+    @Test
+    fun lifecycleDestroyReleasesRecyclerViewAndActivity() {
+        val references = showAndRelease(true)
+        assertReleased(references)
+    }
+
+    @Test
+    fun attachToNullUnbindsLifecycle() {
+        val controller = Robolectric.buildActivity(ComponentActivity::class.java).setup()
+        val activity = controller.get()
+        val fastScroller = createFastScroller(RecyclerView(activity))
+        // getLifecycle() is declared as Lifecycle, which has no observer count
+        val lifecycle = activity.lifecycle as LifecycleRegistry
+        val observerCount = lifecycle.observerCount
+        fastScroller.bindToLifecycle(activity)
+        assertEquals(observerCount + 1, lifecycle.observerCount)
+        fastScroller.attachToRecyclerView(null)
+        assertEquals(observerCount, lifecycle.observerCount)
+        controller.pause().stop().destroy()
+    }
+
+    @Test
+    fun bindingToDestroyedLifecycleTearsDown() {
+        val controller = Robolectric.buildActivity(ComponentActivity::class.java).setup()
+        val activity = controller.get()
+        val recyclerView = RecyclerView(activity)
+        val fastScroller = createFastScroller(recyclerView)
+        assertEquals(1, recyclerView.itemDecorationCount)
+        ItemHeightCache.open(activity, "leak_test", 1L, ITEM_COUNT).use { itemHeightCache ->
+            fastScroller.itemHeightCache = itemHeightCache
+            controller.pause().stop().destroy()
+            fastScroller.bindToLifecycle(activity)
+            assertEquals(0, recyclerView.itemDecorationCount)
+            assertNull(fastScroller.itemHeightCache)
+        }
+    }
+
+    private fun showAndRelease(useLifecycle: Boolean): References {
+        val controller = Robolectric.buildActivity(ComponentActivity::class.java).setup()
+        val activity = controller.get()
+        val recyclerView = RecyclerView(activity)
+        recyclerView.layoutManager = LinearLayoutManager(activity)
+        recyclerView.adapter = SimpleAdapter()
+        activity.setContentView(recyclerView)
+        shadowOf(Looper.getMainLooper()).idle()
+        val fastScroller = createFastScroller(recyclerView)
+        if (useLifecycle)
+            fastScroller.bindToLifecycle(activity)
+        // Showing the scroller starts the show animation and posts hiding it
+        recyclerView.scrollBy(0, ITEM_HEIGHT)
+        assertTrue(fastScroller.isVisible)
+        assertTrue(fastScroller.mShowHideAnimator.isStarted)
+        if (!useLifecycle)
+            fastScroller.detachFromRecyclerView()
+        controller.pause().stop().destroy()
+        shadowOf(Looper.getMainLooper()).idle()
+        return References(fastScroller, WeakReference(recyclerView), WeakReference(activity))
+    }
+
+    private fun assertReleased(references: References) {
+        for (i in 0 until 20) {
+            if (references.recyclerView.get() == null && references.activity.get() == null)
+                break
+            System.gc()
+            System.runFinalization()
+            Thread.sleep(50)
+        }
+        assertNull("RecyclerView retained", references.recyclerView.get())
+        assertNull("Activity retained", references.activity.get())
+        // The scroller itself is still alive here, so it isn't what retained them
+        assertTrue(!references.fastScroller.isDragging)
+    }
+
+    private fun createFastScroller(recyclerView: RecyclerView) =
+            FastScrollerEx(recyclerView, StateListDrawable(), ColorDrawable(), StateListDrawable(),
+                    ColorDrawable(), THICKNESS, 0, 0, true, MIN_THUMB_SIZE)
+
+    companion object {
+        private const val ITEM_COUNT = 1000
+        private const val ITEM_HEIGHT = 50
+        private const val THICKNESS = 20
+        private const val MIN_THUMB_SIZE = 100
+    }
+}
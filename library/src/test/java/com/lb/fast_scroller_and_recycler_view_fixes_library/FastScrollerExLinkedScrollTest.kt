@@ -0,0 +1,109 @@
+package com.lb.fast_scroller_and_recycler_view_fixes_library
+
+import android.content.Context
+import android.graphics.drawable.ColorDrawable
+import android.graphics.drawable.StateListDrawable
+import android.view.View
+import android.view.ViewGroup
+import androidx.recyclerview.widget.LinearLayoutManager
+import androidx.recyclerview.widget.RecyclerView
+import androidx.test.core.app.ApplicationProvider
+import org.junit.Assert.assertEquals
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+
+/**
+ * Checks that linked RecyclerViews stay at the same position as the main one, even after one of
+ * them couldn't scroll as far as the other (where mirroring the scroll deltas drifts).
+ */
+@RunWith(RobolectricTestRunner::class)
+class FastScrollerExLinkedScrollTest {
+    private class SimpleAdapter : RecyclerView.Adapter<RecyclerView.ViewHolder>() {
+        override fun onCreateViewHolder(parent: ViewGroup, viewType: Int): RecyclerView.ViewHolder {
+            val view = View(parent.context)
+            view.layoutParams = RecyclerView.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, ITEM_HEIGHT)
+            return object : RecyclerView.ViewHolder(view) {
+            }
+        }
+
+        override fun onBindViewHolder(holder: RecyclerView.ViewHolder, position: Int) {
+        }
+
+        override fun getItemCount(): Int = ITEM_COUNT
+    }
+
+    @Test
+    fun mainScrollAlignsLinkedAfterEdge() {
+        val main = createRecyclerView(MAIN_HEIGHT)
+        val linked = createRecyclerView(LINKED_HEIGHT)
+        val fastScroller = createFastScroller(main)
+        fastScroller.addLinkedRecyclerView(linked)
+        // The taller linked list reaches its end first, and stops there
+        main.scrollBy(0, ITEM_COUNT * ITEM_HEIGHT)
+        main.scrollBy(0, -BACK_SCROLL)
+        layoutIfNeeded(main, MAIN_HEIGHT)
+        layoutIfNeeded(linked, LINKED_HEIGHT)
+        assertAligned(main, linked)
+    }
+
+    @Test
+    fun linkedScrollAlignsMain() {
+        val main = createRecyclerView(MAIN_HEIGHT)
+        val linked = createRecyclerView(LINKED_HEIGHT)
+        val fastScroller = createFastScroller(main)
+        fastScroller.addLinkedRecyclerView(linked)
+        linked.scrollBy(0, ITEM_COUNT * ITEM_HEIGHT)
+        linked.scrollBy(0, -BACK_SCROLL)
+        layoutIfNeeded(main, MAIN_HEIGHT)
+        layoutIfNeeded(linked, LINKED_HEIGHT)
+        assertAligned(linked, main)
+    }
+
+    private fun assertAligned(source: RecyclerView, target: RecyclerView) {
+        val sourceLayoutManager = source.layoutManager as LinearLayoutManager
+        val targetLayoutManager = target.layoutManager as LinearLayoutManager
+        val position = sourceLayoutManager.findFirstVisibleItemPosition()
+        assertEquals(position, targetLayoutManager.findFirstVisibleItemPosition())
+        assertEquals(sourceLayoutManager.findViewByPosition(position)!!.top,
+                targetLayoutManager.findViewByPosition(position)!!.top)
+    }
+
+    private fun createRecyclerView(height: Int): RecyclerView {
+        val context = ApplicationProvider.getApplicationContext<Context>()
+        val recyclerView = RecyclerView(context)
+        recyclerView.layoutManager = LinearLayoutManager(context)
+        recyclerView.adapter = SimpleAdapter()
+        layout(recyclerView, height)
+        return recyclerView
+    }
+
+    private fun createFastScroller(recyclerView: RecyclerView) =
+            FastScrollerEx(recyclerView, StateListDrawable(), ColorDrawable(), StateListDrawable(),
+                    ColorDrawable(), THICKNESS, 0, 0, true, MIN_THUMB_SIZE)
+
+    private fun layout(recyclerView: RecyclerView, height: Int) {
+        recyclerView.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(height, View.MeasureSpec.EXACTLY))
+        recyclerView.layout(0, 0, WIDTH, height)
+    }
+
+    /**
+     * Runs the layout pass that the next frame would run, as jumps only request it.
+     */
+    private fun layoutIfNeeded(recyclerView: RecyclerView, height: Int) {
+        if (recyclerView.isLayoutRequested)
+            layout(recyclerView, height)
+    }
+
+    companion object {
+        private const val ITEM_COUNT = 100
+        private const val ITEM_HEIGHT = 50
+        private const val WIDTH = 540
+        private const val MAIN_HEIGHT = 1000
+        private const val LINKED_HEIGHT = 1500
+        private const val BACK_SCROLL = 1000
+        private const val THICKNESS = 20
+        private const val MIN_THUMB_SIZE = 100
+    }
+}
@@ -0,0 +1,109 @@
+package com.lb.fast_scroller_and_recycler_view_fixes_library
+
+import android.content.Context
+import android.graphics.Bitmap
+import android.graphics.Canvas
+import android.graphics.drawable.ColorDrawable
+import android.graphics.drawable.StateListDrawable
+import android.view.View
+import android.view.ViewGroup
+import androidx.recyclerview.widget.LinearLayoutManager
+import androidx.recyclerview.widget.RecyclerView
+import androidx.test.core.app.ApplicationProvider
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+
+/**
+ * Checks that scrollToFraction() lands on the matching position, including when it's called right
+ * after setting the adapter, before the RecyclerView was ever laid out.
+ */
+@RunWith(RobolectricTestRunner::class)
+class FastScrollerExScrollToFractionTest {
+    private class SimpleAdapter : RecyclerView.Adapter<RecyclerView.ViewHolder>() {
+        override fun onCreateViewHolder(parent: ViewGroup, viewType: Int): RecyclerView.ViewHolder {
+            val view = View(parent.context)
+            view.layoutParams = RecyclerView.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, ITEM_HEIGHT)
+            return object : RecyclerView.ViewHolder(view) {
+            }
+        }
+
+        override fun onBindViewHolder(holder: RecyclerView.ViewHolder, position: Int) {
+        }
+
+        override fun getItemCount(): Int = ITEM_COUNT
+    }
+
+    @Test
+    fun jumpsWhenLaidOut() {
+        val recyclerView = createRecyclerView()
+        val fastScroller = createFastScroller(recyclerView)
+        layout(recyclerView)
+        fastScroller.scrollToFraction(0.5f)
+        layoutIfNeeded(recyclerView)
+        assertMiddle(recyclerView)
+    }
+
+    @Test
+    fun jumpsAfterFirstLayout() {
+        val recyclerView = createRecyclerView()
+        val fastScroller = createFastScroller(recyclerView)
+        // As for a deep link on launch: the list wasn't laid out yet, so the range is unknown
+        fastScroller.scrollToFraction(0.5f)
+        layout(recyclerView)
+        assertEquals(0, (recyclerView.layoutManager as LinearLayoutManager).findFirstVisibleItemPosition())
+        // The first draw applies the jump, and the next frame lays it out
+        draw(recyclerView)
+        layoutIfNeeded(recyclerView)
+        assertMiddle(recyclerView)
+    }
+
+    private fun assertMiddle(recyclerView: RecyclerView) {
+        val itemsPerScreen = HEIGHT / ITEM_HEIGHT
+        val expectedPosition = (ITEM_COUNT - itemsPerScreen) / 2
+        val firstVisiblePosition = (recyclerView.layoutManager as LinearLayoutManager).findFirstVisibleItemPosition()
+        assertTrue("landed on $firstVisiblePosition instead of $expectedPosition",
+                Math.abs(firstVisiblePosition - expectedPosition) <= 1)
+    }
+
+    private fun createRecyclerView(): RecyclerView {
+        val context = ApplicationProvider.getApplicationContext<Context>()
+        val recyclerView = RecyclerView(context)
+        recyclerView.layoutManager = LinearLayoutManager(context)
+        recyclerView.adapter = SimpleAdapter()
+        return recyclerView
+    }
+
+    private fun createFastScroller(recyclerView: RecyclerView) =
+            FastScrollerEx(recyclerView, StateListDrawable(), ColorDrawable(), StateListDrawable(),
+                    ColorDrawable(), THICKNESS, 0, 0, true, MIN_THUMB_SIZE)
+
+    private fun draw(recyclerView: RecyclerView) {
+        recyclerView.draw(Canvas(Bitmap.createBitmap(WIDTH, HEIGHT, Bitmap.Config.ARGB_8888)))
+    }
+
+    private fun layout(recyclerView: RecyclerView) {
+        recyclerView.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY))
+        recyclerView.layout(0, 0, WIDTH, HEIGHT)
+    }
+
+    /**
+     * Runs the layout pass that the next frame would run, as jumps only request it.
+     */
+    private fun layoutIfNeeded(recyclerView: RecyclerView) {
+        if (recyclerView.isLayoutRequested)
+            layout(recyclerView)
+    }
+
+    companion object {
+        private const val ITEM_COUNT = 10_000
+        private const val ITEM_HEIGHT = 50
+        private const val WIDTH = 540
+        private const val HEIGHT = 1000
+        private const val THICKNESS = 20
+        private const val MIN_THUMB_SIZE = 100
+    }
+}
@@ -0,0 +1,154 @@
+package com.lb.fast_scroller_and_recycler_view_fixes_library
+
+import android.content.Context
+import androidx.test.core.app.ApplicationProvider
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+
+/**
+ * Checks that stored heights follow their items through adapter changes and growth, comparing the
+ * cache with a plain list of the expected heights.
+ */
+@RunWith(RobolectricTestRunner::class)
+class ItemHeightCacheTest {
+    private lateinit var context: Context
+    private lateinit var itemHeightCache: ItemHeightCache
+    /**
+     * Expected heights by position, -1 for unknown. Each item has its initial position as id.
+     */
+    private val expectedHeights = ArrayList<Int>()
+    private val expectedIds = ArrayList<Long>()
+
+    @Before
+    fun setUp() {
+        context = ApplicationProvider.getApplicationContext()
+        itemHeightCache = ItemHeightCache.open(context, LIST_ID, 1L, ITEM_COUNT)
+        for (position in 0 until ITEM_COUNT) {
+            val height = 10 + position % 7
+            itemHeightCache.put(position, position.toLong(), height)
+            expectedHeights.add(height)
+            expectedIds.add(position.toLong())
+        }
+        assertMatches()
+    }
+
+    @After
+    fun tearDown() {
+        itemHeightCache.close()
+    }
+
+    @Test
+    fun insertShiftsHeights() {
+        itemHeightCache.onItemRangeInserted(5, 3, ITEM_COUNT + 3)
+        expectedHeights.addAll(5, listOf(-1, -1, -1))
+        expectedIds.addAll(5, listOf(-1L, -1L, -1L))
+        assertMatches()
+    }
+
+    @Test
+    fun removeShiftsHeights() {
+        itemHeightCache.onItemRangeRemoved(5, 3)
+        repeat(3) {
+            expectedHeights.removeAt(5)
+            expectedIds.removeAt(5)
+        }
+        assertMatches()
+    }
+
+    @Test
+    fun moveMovesHeight() {
+        itemHeightCache.onItemRangeMoved(2, 9, 1)
+        expectedHeights.add(9, expectedHeights.removeAt(2))
+        expectedIds.add(9, expectedIds.removeAt(2))
+        itemHeightCache.onItemRangeMoved(20, 4, 1)
+        expectedHeights.add(4, expectedHeights.removeAt(20))
+        expectedIds.add(4, expectedIds.removeAt(20))
+        assertMatches()
+    }
+
+    @Test
+    fun changeForgetsHeights() {
+        itemHeightCache.onItemRangeChanged(10, 4)
+        for (position in 10 until 14)
+            expectedHeights[position] = -1
+        assertMatches()
+    }
+
+    @Test
+    fun growthKeepsHeights() {
+        itemHeightCache.ensureCapacity(ITEM_COUNT * 10)
+        assertMatches()
+        // Positions beyond the old capacity can be stored, and the grown file is valid when reopened
+        itemHeightCache.put(ITEM_COUNT * 5, 0L, 100)
+        itemHeightCache.close()
+        itemHeightCache = ItemHeightCache.open(context, LIST_ID, 1L, ITEM_COUNT)
+        assertMatches()
+        assertEquals(100, itemHeightCache.getHeight(ITEM_COUNT * 5, 0L))
+    }
+
+    @Test
+    fun burstOfChangesKeepsOffsets() {
+        itemHeightCache.onItemRangeInserted(5, 3, ITEM_COUNT + 3)
+        expectedHeights.addAll(5, listOf(-1, -1, -1))
+        expectedIds.addAll(5, listOf(-1L, -1L, -1L))
+        // Stored while the trees wait to be rebuilt, which mustn't count it twice
+        itemHeightCache.put(6, 100L, 50)
+        expectedHeights[6] = 50
+        expectedIds[6] = 100L
+        itemHeightCache.onItemRangeRemoved(0, 2)
+        repeat(2) {
+            expectedHeights.removeAt(0)
+            expectedIds.removeAt(0)
+        }
+        assertMatches()
+    }
+
+    @Test
+    fun reopenedWhileDirtyKeepsOffsets() {
+        itemHeightCache.onItemRangeRemoved(5, 3)
+        repeat(3) {
+            expectedHeights.removeAt(5)
+            expectedIds.removeAt(5)
+        }
+        // Closed before any query rebuilt the trees
+        itemHeightCache.close()
+        itemHeightCache = ItemHeightCache.open(context, LIST_ID, 1L, ITEM_COUNT)
+        assertMatches()
+    }
+
+    @Test
+    fun putReplacesEntryOfAnotherItem() {
+        // Same height, but measured for another item
+        itemHeightCache.put(3, 1000L, expectedHeights[3])
+        expectedIds[3] = 1000L
+        itemHeightCache.put(4, 1001L, 40)
+        expectedHeights[4] = 40
+        expectedIds[4] = 1001L
+        assertMatches()
+        assertEquals(-1, itemHeightCache.getHeight(3, 3L))
+    }
+
+    private fun assertMatches() {
+        for (position in expectedHeights.indices)
+            assertEquals("height of $position", expectedHeights[position],
+                    itemHeightCache.getHeight(position, expectedIds[position]))
+        // Up to the first unknown height, offsets are exact sums
+        var offset = 0L
+        for (position in expectedHeights.indices) {
+            assertEquals("offset of $position", offset, itemHeightCache.getEstimatedOffset(position))
+            if (expectedHeights[position] < 0)
+                break
+            offset += expectedHeights[position]
+        }
+        assertEquals(expectedHeights.any { it >= 0 }, itemHeightCache.hasKnownHeights())
+    }
+
+    companion object {
+        private const val LIST_ID = "item_height_cache_test"
+        private const val ITEM_COUNT = 32
+    }
+}